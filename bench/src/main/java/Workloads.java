@@ -0,0 +1,135 @@
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * The class <b>Workloads</b> builds the operations measured by the benchmarks: the
+ * escape search of the blue dot, the choice of a step by the hard blue dot, the rebuild
+ * of the distance field on one thread or with a pool of every core, a move with the field repaired or rebuilt, the reset of the
+ * model, the relocation of the blue dot, the construction of the board view and its
+ * refresh after the blue dot moved, and the search of the blue dot on sparse boards.
+ *
+ * The classes of the game are in the unnamed package, which the benchmarks of JMH cannot
+ * be in nor import from, so the benchmarks look this class up by name and only see the
+ * operations it builds as a LongSupplier. Every operation returns a value computed from
+ * its result, which JMH consumes, so that the work cannot be optimized away.
+ */
+
+public class Workloads {
+
+    /**
+     * seed of the boards of every benchmark
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * Builds an operation on a board generated from SEED.
+     *
+     * @param name
+     *            the name of the benchmark
+     * @param size
+     *            the size of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     * @return the operation
+     * @throws IllegalArgumentException
+     *            if there is no benchmark of that name
+     */
+    public static LongSupplier create(String name, int size, double density) {
+        if (name.equals("sparse.search")) {
+            final SparseBoard board = new SparseBoard(size, SEED, density);
+            final SparseEscapeSearch search = new SparseEscapeSearch();
+            return new LongSupplier() {
+                public long getAsLong() {
+                    return search.nextStep(board);
+                }
+            };
+        }
+
+        final GameModel model = new GameModel(size, SEED, density);
+        model.reset();
+        final int dot = model.getDotIndex();
+        final int step = model.getEscapeStep();
+        // the blue dot goes back and forth between its place and its next step
+        final int other = (step >= 0) ? step : dot;
+        switch (name) {
+        case "search":
+            final EscapeSearch search = new EscapeSearch(size);
+            return new LongSupplier() {
+                public long getAsLong() {
+                    return search.nextStep(model);
+                }
+            };
+        case "policy.routes":
+            final MostRoutesPolicy routes = new MostRoutesPolicy();
+            return new LongSupplier() {
+                public long getAsLong() {
+                    return routes.nextStep(model);
+                }
+            };
+        case "field.rebuild.seq":
+        case "field.rebuild.par":
+            final DistanceField field = new DistanceField(size);
+            // at least two threads, or the field would be rebuilt on one thread anyway
+            field.setPool(name.endsWith("par")
+                    ? new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors())) : null);
+            return new LongSupplier() {
+                public long getAsLong() {
+                    field.rebuild(model);
+                    return field.getDistance(dot);
+                }
+            };
+        case "model.reset":
+            return new LongSupplier() {
+                public long getAsLong() {
+                    model.reset();
+                    return model.getDotIndex();
+                }
+            };
+        case "move.repair":
+        case "move.rebuild":
+            if (step < 0) {
+                throw new IllegalArgumentException("The blue dot is trapped on this board");
+            }
+            model.setFieldUpdate(DistanceField.Update.valueOf(name.substring(5).toUpperCase(Locale.ROOT)));
+            return new LongSupplier() {
+                public long getAsLong() {
+                    model.select(step / size, step % size);
+                    int next = model.getEscapeStep();
+                    model.deselect(step / size, step % size);
+                    return next;
+                }
+            };
+        case "setCurrentDot":
+            return new LongSupplier() {
+                private boolean moved;
+
+                public long getAsLong() {
+                    moved = !moved;
+                    model.setCurrentDot(moved ? other : dot);
+                    return model.getDotIndex();
+                }
+            };
+        case "view.build":
+            return new LongSupplier() {
+                public long getAsLong() {
+                    return new BoardView(model, null).getComponentCount();
+                }
+            };
+        case "view.update":
+            final BoardView view = new BoardView(model, null);
+            return new LongSupplier() {
+                private boolean moved;
+
+                public long getAsLong() {
+                    moved = !moved;
+                    model.setCurrentDot(moved ? other : dot);
+                    view.update();
+                    return model.getDotIndex();
+                }
+            };
+        default:
+            throw new IllegalArgumentException("Unknown benchmark " + name);
+        }
+    }
+}
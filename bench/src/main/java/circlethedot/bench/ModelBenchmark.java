@@ -0,0 +1,52 @@
+package circlethedot.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>ModelBenchmark</b> measures the operations of the model and of the blue
+ * dot on every size of board, from 9 x 9 to 2049 x 2049 dots.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    @Param({"search", "policy.routes", "field.rebuild.seq", "field.rebuild.par", "model.reset", "move.repair",
+            "move.rebuild", "setCurrentDot"})
+    public String name;
+
+    @Param({"9", "33", "129", "513", "2049"})
+    public int size;
+
+    @Param({"0.05", "0.1", "0.2"})
+    public double density;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        operation = WorkloadLoader.load(name, size, density);
+    }
+
+    @Benchmark
+    public long run() {
+        return operation.getAsLong();
+    }
+}
@@ -0,0 +1,51 @@
+package circlethedot.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>SparseBenchmark</b> measures the search of the blue dot on the sparse
+ * boards of the large-board mode, up to 50,000 x 50,000 dots.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparseBenchmark {
+
+    @Param({"sparse.search"})
+    public String name;
+
+    @Param({"2049", "50000"})
+    public int size;
+
+    @Param({"0.05", "0.1", "0.2"})
+    public double density;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        operation = WorkloadLoader.load(name, size, density);
+    }
+
+    @Benchmark
+    public long run() {
+        return operation.getAsLong();
+    }
+}
@@ -0,0 +1,52 @@
+package circlethedot.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The class <b>ViewBenchmark</b> measures the construction of the board view and its
+ * refresh after the blue dot moved, on the boards small enough for one button per dot.
+ * The view is built without a window, in headless mode.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ViewBenchmark {
+
+    @Param({"view.build", "view.update"})
+    public String name;
+
+    @Param({"9", "33", "129"})
+    public int size;
+
+    @Param({"0.05", "0.1", "0.2"})
+    public double density;
+
+    private LongSupplier operation;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        operation = WorkloadLoader.load(name, size, density);
+    }
+
+    @Benchmark
+    public long run() {
+        return operation.getAsLong();
+    }
+}
@@ -0,0 +1,33 @@
+package circlethedot.bench;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The class <b>WorkloadLoader</b> gets the operations of the benchmarks from the class
+ * Workloads of the unnamed package, which cannot be imported from a named package.
+ */
+
+final class WorkloadLoader {
+
+    private WorkloadLoader() {
+    }
+
+    /**
+     * Builds an operation with Workloads.create.
+     *
+     * @param name
+     *            the name of the benchmark
+     * @param size
+     *            the size of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     * @return the operation
+     * @throws ReflectiveOperationException
+     *             if Workloads cannot be found or the operation cannot be built
+     */
+    static LongSupplier load(String name, int size, double density) throws ReflectiveOperationException {
+        return (LongSupplier) Class.forName("Workloads")
+                .getMethod("create", String.class, int.class, double.class)
+                .invoke(null, name, size, density);
+    }
+}
@@ -0,0 +1,235 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The class <b>DistanceFieldTest</b> replays seeded games, with moves that are played
+ * and then undone, and checks after each of them that the distance field kept up to
+ * date by the model is the field rebuilt from scratch, and that the step read off it is
+ * the step found by <b>EscapeSearch</b>. On large boards, it also checks that the field
+ * rebuilt in parallel is the field rebuilt on a single thread.
+ */
+
+public class DistanceFieldTest {
+
+    /**
+     * number of moves tried in a game, some of which undo an earlier move
+     */
+    private static final int MOVES = 80;
+
+    @Test
+    public void repairedFieldMatchesRebuildOnSquareBoards() {
+        for (int size : new int[] {4, 5, 9, 11, 20, 33}) {
+            for (double density : new double[] {0.0, 0.1, 0.3}) {
+                replay(Topology.square(size), density, DistanceField.Update.REPAIR, 30);
+            }
+        }
+    }
+
+    @Test
+    public void rebuiltFieldMatchesRebuildOnSquareBoards() {
+        for (int size : new int[] {5, 11, 20}) {
+            replay(Topology.square(size), 0.1, DistanceField.Update.REBUILD, 30);
+        }
+    }
+
+    @Test
+    public void repairedFieldMatchesRebuildOnHexagons() {
+        for (int radius : new int[] {3, 5, 10}) {
+            replay(Topology.hexagon(radius), 0.1, DistanceField.Update.REPAIR, 30);
+            replay(Topology.hexagon(radius), 0.1, DistanceField.Update.REBUILD, 10);
+        }
+    }
+
+    @Test
+    public void repairedFieldMatchesRebuildOnRectangles() {
+        replay(Topology.rectangle(7, 19), 0.1, DistanceField.Update.REPAIR, 30);
+        replay(Topology.rectangle(25, 6), 0.2, DistanceField.Update.REPAIR, 30);
+        replay(Topology.rectangle(9, 40), 0.1, DistanceField.Update.REBUILD, 10);
+    }
+
+    @Test
+    public void repairedFieldMatchesRebuildWithQueue() {
+        // past 256 x 256 dots, the field is rebuilt with a queue instead of bitsets
+        replay(Topology.square(300), 0.1, DistanceField.Update.REPAIR, 2);
+    }
+
+    @Test
+    public void parallelRebuildMatchesSequentialRebuild() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int bottomUp = 0;
+        try {
+            for (double density : new double[] {0.0, 0.05, 0.2, 0.45}) {
+                bottomUp += compareRebuilds(Topology.square(300), density, pool);
+                bottomUp += compareRebuilds(Topology.square(1025), density, pool);
+                bottomUp += compareRebuilds(Topology.rectangle(2000, 150), density, pool);
+                bottomUp += compareRebuilds(Topology.hexagon(200), density, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(bottomUp > 0, "no level was computed bottom-up");
+    }
+
+    /**
+     * Plays a few random moves on seeded boards, and checks after each of them
+     * that the field rebuilt with a pool has the distances of the field rebuilt
+     * on the calling thread, and gives the same step as EscapeSearch.
+     *
+     * @param topology
+     *            the shape of the board, large enough to be rebuilt in parallel
+     * @param density
+     *            the probability that a dot is initially selected
+     * @param pool
+     *            the pool of the parallel rebuild
+     * @return the number of levels of the parallel rebuilds computed bottom-up
+     */
+    private static int compareRebuilds(Topology topology, double density, ForkJoinPool pool) {
+        DistanceField parallel = new DistanceField(topology);
+        parallel.setPool(pool);
+        DistanceField sequential = new DistanceField(topology);
+        sequential.setPool(null);
+        EscapeSearch search = new EscapeSearch(topology);
+        int columns = topology.getColumns();
+        int bottomUp = 0;
+        for (long seed = 0; seed < 3; seed++) {
+            GameModel model = new GameModel(topology, seed, density);
+            model.reset(seed);
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int move = 0; move < 4; move++) {
+                String where = topology.getRows() + "x" + columns + ", density " + density + ", seed " + seed
+                        + ", move " + move;
+                parallel.rebuild(model);
+                sequential.rebuild(model);
+                bottomUp += parallel.getLastBottomUpLevels();
+                for (int index = 0; index < topology.getCells(); index++) {
+                    if (parallel.getDistance(index) != sequential.getDistance(index)) {
+                        assertEquals(sequential.getDistance(index), parallel.getDistance(index),
+                                "distance of dot " + index + ", " + where);
+                    }
+                }
+                int dot = model.getDotIndex();
+                int step = search.nextStep(model);
+                assertEquals(step, sequential.nextStep(model, dot), "sequential step, " + where);
+                assertEquals(step, parallel.nextStep(model, dot), "parallel step, " + where);
+                int index = choose(model, random);
+                if (index < 0) {
+                    break;
+                }
+                model.select(index / columns, index % columns);
+            }
+        }
+        return bottomUp;
+    }
+
+    /**
+     * Plays seeded games on a board, and checks the model after every move and
+     * every undo. A move selects either the next step of the blue dot or a random
+     * dot, and then moves the blue dot; an undo deselects the last selected dot
+     * and puts the blue dot back.
+     *
+     * @param topology
+     *            the shape of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     * @param update
+     *            how the model updates its field
+     * @param games
+     *            the number of games
+     */
+    private static void replay(Topology topology, double density, DistanceField.Update update, int games) {
+        long seed = 31L * topology.getCells() + Double.hashCode(density);
+        GameModel model = new GameModel(topology, seed, density);
+        model.setFieldUpdate(update);
+        EscapeSearch search = new EscapeSearch(topology);
+        DistanceField fresh = new DistanceField(topology);
+        SplittableRandom random = new SplittableRandom(seed);
+        int columns = topology.getColumns();
+        int[] played = new int[MOVES];
+        int[] dots = new int[MOVES];
+        for (int game = 0; game < games; game++) {
+            model.reset(seed + game);
+            check(model, fresh, search, "start of game " + game);
+            int count = 0;
+            for (int move = 0; move < MOVES; move++) {
+                if (count > 0 && random.nextInt(4) == 0) {
+                    count--;
+                    model.deselect(played[count] / columns, played[count] % columns);
+                    model.setCurrentDot(dots[count]);
+                    check(model, fresh, search, "undo " + move + " of game " + game);
+                    continue;
+                }
+                int index = choose(model, random);
+                if (index < 0) {
+                    break;
+                }
+                played[count] = index;
+                dots[count] = model.getDotIndex();
+                count++;
+                model.select(index / columns, index % columns);
+                check(model, fresh, search, "move " + move + " of game " + game);
+                int step = model.getEscapeStep();
+                if (step == EscapeSearch.TRAPPED || model.isBorder(step)) {
+                    break;
+                }
+                model.setCurrentDot(step);
+                check(model, fresh, search, "step " + move + " of game " + game);
+            }
+        }
+    }
+
+    /**
+     * Chooses the dot to select: half of the time the next step of the blue dot,
+     * otherwise a random dot that is available.
+     *
+     * @param model
+     *            the model of the game
+     * @param random
+     *            the random generator of the test
+     * @return the index of the dot, or -1 if no available dot was found
+     */
+    private static int choose(GameModel model, SplittableRandom random) {
+        int step = model.getEscapeStep();
+        if (step != EscapeSearch.TRAPPED && random.nextBoolean()) {
+            return step;
+        }
+        Topology topology = model.getTopology();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            int index = random.nextInt(topology.getCells());
+            if (topology.isCell(index) && !model.isBlocked(index) && index != model.getDotIndex()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that every distance of the model is the one of a field rebuilt from
+     * scratch, and that the next step of the blue dot is the one of EscapeSearch.
+     *
+     * @param model
+     *            the model of the game
+     * @param fresh
+     *            the field rebuilt by the test
+     * @param search
+     *            the search of the blue dot
+     * @param where
+     *            the position in the replay, for the failure messages
+     */
+    private static void check(GameModel model, DistanceField fresh, EscapeSearch search, String where) {
+        fresh.rebuild(model);
+        for (int index = 0; index < model.getTopology().getCells(); index++) {
+            if (model.getDistanceToBorder(index) != fresh.getDistance(index)) {
+                assertEquals(fresh.getDistance(index), model.getDistanceToBorder(index),
+                        "distance of dot " + index + " after " + where);
+            }
+        }
+        int step = search.nextStep(model);
+        assertEquals(step, model.getEscapeStep(), "step of the blue dot after " + where);
+        assertEquals(step == EscapeSearch.TRAPPED, model.isDotEnclosed(), "enclosed after " + where);
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The class <b>GameEngineTest</b> plays seeded expert games and checks that every move,
+ * from the selection of the dot to the step of the blue dot, fits in the time budget of
+ * the expert game.
+ */
+
+public class GameEngineTest {
+
+    @Test
+    public void expertMovesFitInTheBudgetOnSmallBoards() {
+        assertWithinBudget(21, 8);
+    }
+
+    @Test
+    public void expertMovesFitInTheBudgetOnLargeBoards() {
+        assertWithinBudget(129, 2);
+    }
+
+    /**
+     * Plays seeded expert games, half of the moves next to the blue dot and half
+     * of them at random, and checks the longest move. A first game is played
+     * without being timed, so that the code of the search is compiled.
+     *
+     * @param size
+     *            the size of the boards
+     * @param games
+     *            the number of timed games
+     */
+    private static void assertWithinBudget(int size, int games) {
+        GameEngine engine = new GameEngine(size, 0L);
+        engine.setDifficulty(GameEngine.Difficulty.EXPERT);
+        Player greedy = new GreedyPlayer();
+        Player any = new RandomPlayer();
+        long worst = 0;
+        int moves = 0;
+        for (int game = 0; game <= games; game++) {
+            engine.newGame(game);
+            GameModel model = engine.getModel();
+            SplittableRandom random = new SplittableRandom(game);
+            while (!engine.isOver()) {
+                int index = (random.nextBoolean() ? greedy : any).chooseMove(model, random);
+                if (index == model.getDotIndex()) {
+                    break;
+                }
+                long start = System.nanoTime();
+                engine.select(index / size, index % size);
+                long latency = System.nanoTime() - start;
+                if (game > 0) {
+                    worst = Math.max(worst, latency);
+                    moves++;
+                }
+            }
+        }
+        assertTrue(moves > 0, "no move was timed");
+        assertTrue(worst <= GameEngine.EXPERT_BUDGET, String.format("the slowest of %d moves on %dx%d took %.1f ms",
+                moves, size, size, worst / 1e6));
+    }
+}
@@ -0,0 +1,163 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The class <b>SolverTest</b> checks the quickest wins found by the <b>Solver</b> on small
+ * boards against a brute force search that tries every available dot, and replays the
+ * moves it suggests against the blue dot of a <b>GameEngine</b>, which has to be trapped
+ * in exactly the reported number of moves.
+ */
+
+public class SolverTest {
+
+    /**
+     * time given to every search, long enough never to run out
+     */
+    private static final long BUDGET = 60000000000L;
+
+    @Test
+    public void winningDepthIsTheQuickestWin() {
+        int wins = 0;
+        wins += checkBoards(5, 4, 40);
+        wins += checkBoards(7, 3, 40);
+        assertTrue(wins > 20, "only " + wins + " boards could be won");
+    }
+
+    @Test
+    public void suggestedMovesWinInTheReportedNumberOfMoves() {
+        int replayed = 0;
+        for (long seed = 0; seed < 60; seed++) {
+            GameModel model = new GameModel(9, seed, 0.3);
+            model.reset();
+            Solver solver = new Solver(model);
+            solver.solve(5, BUDGET);
+            int depth = solver.getWinningDepth();
+            if (depth > 0) {
+                replay(model, depth, "seed " + seed);
+                replayed++;
+            }
+        }
+        assertTrue(replayed > 10, "only " + replayed + " boards could be won");
+    }
+
+    /**
+     * Compares the winning depth of the solver with the brute force search on
+     * boards of a given size, of a few densities.
+     *
+     * @param size
+     *            the size of the boards
+     * @param maxDepth
+     *            the largest number of moves looked at
+     * @param seeds
+     *            the number of boards of each density
+     * @return the number of boards that could be won within maxDepth moves
+     */
+    private static int checkBoards(int size, int maxDepth, int seeds) {
+        int wins = 0;
+        for (double density : new double[] {0.2, 0.3, 0.4}) {
+            for (long seed = 0; seed < seeds; seed++) {
+                GameModel model = new GameModel(size, seed, density);
+                model.reset();
+                if (model.isDotEnclosed()) {
+                    // no move to suggest, any dot wins
+                    continue;
+                }
+                int expected = 0;
+                for (int depth = 1; depth <= maxDepth && expected == 0; depth++) {
+                    if (canWin(new GameModel(model), depth)) {
+                        expected = depth;
+                    }
+                }
+                Solver solver = new Solver(model);
+                int move = solver.solve(maxDepth, BUDGET);
+                String board = size + "x" + size + ", density " + density + ", seed " + seed;
+                assertEquals(expected, solver.getWinningDepth(), board);
+                if (expected > 0) {
+                    GameModel copy = new GameModel(model);
+                    copy.select(move / size, move % size);
+                    assertTrue(copy.isDotEnclosed() || canWinAfterStep(copy, expected - 1),
+                            "the suggested move does not win: " + board);
+                    wins++;
+                }
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * Checks by brute force if the player can trap the blue dot within a number
+     * of moves, trying every dot that is not selected, while the blue dot takes
+     * its next step on a shortest path after every move.
+     *
+     * @param model
+     *            the position, which is left as it was
+     * @param depth
+     *            the number of moves of the player
+     * @return true if the blue dot can be trapped within depth moves
+     */
+    private static boolean canWin(GameModel model, int depth) {
+        Topology topology = model.getTopology();
+        int size = model.getSize();
+        for (int index = 0; index < topology.getCells(); index++) {
+            if (!topology.isCell(index) || model.isBlocked(index) || index == model.getDotIndex()) {
+                continue;
+            }
+            model.select(index / size, index % size);
+            boolean win = model.isDotEnclosed() || canWinAfterStep(model, depth - 1);
+            model.deselect(index / size, index % size);
+            if (win) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the blue dot one step, and checks by brute force if the player can
+     * then trap it within a number of moves.
+     *
+     * @param model
+     *            the position after a move of the player, which is left as it was
+     * @param depth
+     *            the number of moves left to the player
+     * @return true if the blue dot can be trapped within depth moves
+     */
+    private static boolean canWinAfterStep(GameModel model, int depth) {
+        int step = model.getEscapeStep();
+        if (depth == 0 || model.isBorder(step)) {
+            return false;
+        }
+        int dot = model.getDotIndex();
+        model.setCurrentDot(step);
+        boolean win = canWin(model, depth);
+        model.setCurrentDot(dot);
+        return win;
+    }
+
+    /**
+     * Plays the moves suggested by new solvers on every position of a game, and
+     * checks that the player wins on the last of depth moves.
+     *
+     * @param position
+     *            the position where the solver found a win
+     * @param depth
+     *            the number of moves of the win
+     * @param game
+     *            the description of the game, for the failure messages
+     */
+    private static void replay(GameModel position, int depth, String game) {
+        GameModel model = new GameModel(position);
+        GameEngine engine = new GameEngine(model);
+        int size = model.getSize();
+        for (int left = depth; left > 0; left--) {
+            Solver solver = new Solver(model);
+            int move = solver.solve(left, BUDGET);
+            assertEquals(left, solver.getWinningDepth(), game + ", " + left + " moves left");
+            MoveResult result = engine.select(move / size, move % size);
+            MoveResult.Status expected = (left == 1) ? MoveResult.Status.WON : MoveResult.Status.MOVED;
+            assertEquals(expected, result.getStatus(), game + ", " + left + " moves left");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The class <b>SparseGameEngineTest</b> checks that a <b>SparseGameEngine</b> plays like
+ * a <b>GameEngine</b>. Each sparse board is copied into a dense model, then both engines
+ * play the same moves, some of them undone on both boards, and after every move they
+ * have to agree on its outcome, and the blue dot of the sparse engine has to take a first
+ * step of a shortest path to the border, as long as the one of the dense engine.
+ *
+ * The two searches may break ties between equally short paths differently, so only the
+ * length of the path is compared, not the step itself; the dense blue dot is then moved
+ * where the sparse one went.
+ */
+
+public class SparseGameEngineTest {
+
+    private static final int[] SIZES = {5, 9, 20, 33, 64, 130};
+    private static final double[] DENSITIES = {0, 0.1, 0.3, 0.5};
+    private static final int SEEDS = 30;
+    private static final int MOVES = 40;
+
+    @Test
+    public void sparseEngineTakesShortestPaths() {
+        int positions = 0;
+        int won = 0;
+        for (int size : SIZES) {
+            for (double density : DENSITIES) {
+                for (long seed = 0; seed < SEEDS; seed++) {
+                    int moves = play(size, density, seed);
+                    positions += Math.abs(moves);
+                    if (moves < 0) {
+                        won++;
+                    }
+                }
+            }
+        }
+        assertTrue(positions > 10000, "only " + positions + " positions were played");
+        assertTrue(won > 0, "the blue dot was never trapped");
+    }
+
+    @Test
+    public void sparseEngineRejectsInvalidMoves() {
+        SparseGameEngine engine = new SparseGameEngine(9, 1L, 0.1);
+        SparseBoard board = engine.getBoard();
+        int row = board.getDotRow();
+        int column = board.getDotColumn();
+        assertRejected(engine, row, column);
+        assertRejected(engine, 9, 0);
+        int other = (row == 0) ? 1 : 0;
+        engine.select(other, column);
+        assertRejected(engine, other, column);
+        assertEquals(1, board.getNumberOfSteps(), "a rejected move was counted");
+    }
+
+    /**
+     * Checks that a move is rejected by the engine.
+     *
+     * @param engine
+     *            the engine
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    private static void assertRejected(SparseGameEngine engine, int row, int column) {
+        try {
+            engine.select(row, column);
+            fail("The move " + row + ", " + column + " was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Plays one board side by side with a SparseGameEngine and a GameEngine.
+     *
+     * @param size
+     *            the size of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     * @param seed
+     *            the seed of the sparse board and of the moves
+     * @return the number of moves played, negative if the player won
+     */
+    private static int play(int size, double density, long seed) {
+        String game = size + "x" + size + ", density " + density + ", seed " + seed;
+        SparseGameEngine sparse = new SparseGameEngine(size, seed, density);
+        SparseBoard board = sparse.getBoard();
+        GameModel model = new GameModel(size, 0L, 0.0);
+        model.reset();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                if (board.isBlocked(row, column)) {
+                    model.select(row, column);
+                }
+            }
+        }
+        model.setCurrentDot(board.getDotRow(), board.getDotColumn());
+        GameEngine dense = new GameEngine(model);
+        int[] offsets = model.getTopology().getOffsets();
+        int[] adjacency = model.getTopology().getAdjacency();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int move = 1; move <= MOVES; move++) {
+            String where = game + ", move " + move;
+            int dot = model.getDotIndex();
+            int index = model.getEscapeStep();
+            if (index == EscapeSearch.TRAPPED || random.nextBoolean()) {
+                do {
+                    index = random.nextInt(size * size);
+                } while (index == dot || model.isBlocked(index));
+            }
+            int row = index / size;
+            int column = index % size;
+            MoveResult expected = dense.select(row, column);
+            MoveResult result = sparse.select(row, column);
+            assertEquals(expected.getStatus(), result.getStatus(), where);
+            if (result.getStatus() == MoveResult.Status.WON) {
+                assertEquals(dot / size, result.getRow(), where);
+                assertEquals(dot % size, result.getColumn(), where);
+                return -move;
+            }
+            int step = result.getRow() * size + result.getColumn();
+            boolean neighbour = false;
+            for (int k = offsets[dot]; k < offsets[dot + 1]; k++) {
+                neighbour |= adjacency[k] == step;
+            }
+            assertTrue(neighbour, "not a neighbour of the blue dot: " + where);
+            assertFalse(model.isBlocked(step), "a selected dot: " + where);
+            int shortest = model.getDistanceToBorder(expected.getRow() * size + expected.getColumn());
+            assertEquals(shortest, model.getDistanceToBorder(step), "not a shortest path: " + where);
+            if (result.getStatus() == MoveResult.Status.LOST) {
+                return move;
+            }
+            model.setCurrentDot(step);
+            if (random.nextInt(5) == 0) {
+                board.deselect(row, column);
+                model.deselect(row, column);
+            }
+        }
+        return MOVES;
+    }
+}
@@ -0,0 +1,318 @@
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The class <b>BatchSimulator</b> plays many games without any user interface, with
+ * a <b>Player</b> strategy against the blue dot, and reports how often the player wins.
+ * The games are split across all the cores with a fork-join pool. Each leaf task
+ * owns its own <b>GameEngine</b>, whose buffers are reused for all of its games, so
+ * the workers never share or lock anything.
+ *
+ * Game number i of a batch is always generated from the same seed, so a batch gives
+ * the same results whatever the number of cores. A game is stopped as soon as the
+ * player cannot avoid losing on the next move, and counted as lost in one more step.
+ */
+
+public class BatchSimulator {
+
+    private ForkJoinPool pool;
+    private Player player;
+    private long seed;
+    private GameEngine.Difficulty difficulty = GameEngine.Difficulty.NORMAL;
+
+    /**
+     * Constructor used for initializing a simulator on the common fork-join pool.
+     *
+     * @param player
+     *            the strategy used to select the dots
+     * @param seed
+     *            the seed from which the boards of every batch are derived
+     */
+    public BatchSimulator(Player player, long seed) {
+        this(player, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor used for initializing a simulator on a given pool.
+     *
+     * @param player
+     *            the strategy used to select the dots
+     * @param seed
+     *            the seed from which the boards of every batch are derived
+     * @param pool
+     *            the pool that runs the games
+     */
+    public BatchSimulator(Player player, long seed, ForkJoinPool pool) {
+        this.player = player;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the difficulty of the games of the next batches.
+     *
+     * @param difficulty
+     *            the difficulty
+     */
+    public void setDifficulty(GameEngine.Difficulty difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Plays a batch of games on boards of a given size and density.
+     *
+     * @param size
+     *            the size of the boards
+     * @param density
+     *            the probability that a dot is initially selected, at least 0
+     *            and less than 1
+     * @param games
+     *            the number of games to play
+     * @return the results of the batch
+     * @throws IllegalArgumentException
+     *            if the density is not at least 0 and less than 1
+     */
+    public Result run(int size, double density, int games) {
+        if (!(density >= 0 && density < 1)) {
+            throw new IllegalArgumentException("Invalid density " + density);
+        }
+        int threshold = Math.max(1, games / (pool.getParallelism() * 8));
+        long start = System.nanoTime();
+        Result result = pool.invoke(new GamesTask(size, density, 0, games, threshold));
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Computes the seed of a game of a batch.
+     *
+     * @param game
+     *            the number of the game in the batch
+     * @return the seed of the game
+     */
+    private long gameSeed(int game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The class <b>GamesTask</b> plays a range of games of a batch, splitting the
+     * range in two while it is larger than the threshold.
+     */
+    private class GamesTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private int size;
+        private double density;
+        private int from;
+        private int to;
+        private int threshold;
+
+        GamesTask(int size, double density, int from, int to, int threshold) {
+            this.size = size;
+            this.density = density;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        protected Result compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                GamesTask left = new GamesTask(size, density, from, middle, threshold);
+                GamesTask right = new GamesTask(size, density, middle, to, threshold);
+                left.fork();
+                Result result = right.compute();
+                result.add(left.join());
+                return result;
+            }
+            Result result = new Result(size, density);
+            GameEngine engine = new GameEngine(size, 0L, density);
+            engine.setDifficulty(difficulty);
+            GameModel model = engine.getModel();
+            for (int game = from; game < to; game++) {
+                long s = gameSeed(game);
+                engine.newGame(s);
+                SplittableRandom random = new SplittableRandom(s);
+                MoveResult move = null;
+                boolean stuck = false;
+                while (!engine.isOver()) {
+                    if (engine.isLostCause()) {
+                        break;
+                    }
+                    int index = player.chooseMove(model, random);
+                    if (index == model.getDotIndex()) {
+                        // no dot is left around the blue dot, which is trapped already
+                        stuck = true;
+                        break;
+                    }
+                    move = engine.select(index / size, index % size);
+                }
+                result.games++;
+                if (stuck) {
+                    result.steps += model.getNumberOfSteps();
+                    result.wins++;
+                } else if (engine.isOver()) {
+                    result.steps += model.getNumberOfSteps();
+                    if (move.getStatus() == MoveResult.Status.WON) {
+                        result.wins++;
+                    }
+                } else {
+                    // the game was cut short: the next move is a loss
+                    result.steps += model.getNumberOfSteps() + 1;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The class <b>Result</b> holds the results of a batch of games.
+     */
+    public static class Result {
+
+        private int size;
+        private double density;
+        private long games;
+        private long wins;
+        private long steps;
+        private long nanos;
+
+        Result(int size, double density) {
+            this.size = size;
+            this.density = density;
+        }
+
+        /**
+         * Adds the results of another part of the same batch.
+         *
+         * @param other
+         *            the results to add
+         */
+        void add(Result other) {
+            games += other.games;
+            wins += other.wins;
+            steps += other.steps;
+        }
+
+        /**
+         * Getter method for the number of games played.
+         *
+         * @return the number of games
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Getter method for the number of games won by the player.
+         *
+         * @return the number of wins
+         */
+        public long getWins() {
+            return wins;
+        }
+
+        /**
+         * Computes the proportion of games won by the player.
+         *
+         * @return the win rate, between 0 and 1
+         */
+        public double getWinRate() {
+            return games == 0 ? 0 : (double) wins / games;
+        }
+
+        /**
+         * Computes the average number of steps of a game.
+         *
+         * @return the average number of steps
+         */
+        public double getAverageSteps() {
+            return games == 0 ? 0 : (double) steps / games;
+        }
+
+        /**
+         * Computes the throughput of the batch.
+         *
+         * @return the number of games played per second
+         */
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        public String toString() {
+            return String.format("%6d  %7.3f  %10d  %8.2f%%  %8.1f  %12.0f",
+                    size, density, games, 100 * getWinRate(), getAverageSteps(), getGamesPerSecond());
+        }
+    }
+
+    /**
+     * Runs batches for every combination of board sizes and densities and prints
+     * the results. Usage:
+     * java BatchSimulator [games] [random|greedy] [sizes] [densities] [seed] [normal|hard|expert]
+     * where sizes and densities are comma separated lists, and each density is at
+     * least 0 and less than 1.
+     *
+     * @param args
+     *            command line parameters
+     */
+    public static void main(String[] args) {
+        int games = 10000;
+        Player player = new GreedyPlayer();
+        String sizes = "9,11,15,21";
+        String densities = "0.05,0.1,0.15,0.2";
+        long seed = 1L;
+        GameEngine.Difficulty difficulty = GameEngine.Difficulty.NORMAL;
+        try {
+            if (args.length > 0) {
+                games = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1 && args[1].equals("random")) {
+                player = new RandomPlayer();
+            }
+            if (args.length > 2) {
+                sizes = args[2];
+            }
+            if (args.length > 3) {
+                densities = args[3];
+            }
+            if (args.length > 4) {
+                seed = Long.parseLong(args[4]);
+            }
+            if (args.length > 5) {
+                difficulty = GameEngine.Difficulty.valueOf(args[5].toUpperCase(Locale.ROOT));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid argument, using defaults...");
+        }
+        for (String density : densities.split(",")) {
+            double value;
+            try {
+                value = Double.parseDouble(density.trim());
+            } catch (NumberFormatException e) {
+                value = Double.NaN;
+            }
+            if (!(value >= 0 && value < 1)) {
+                System.out.println("Invalid density " + density.trim()
+                        + ", it must be at least 0 and less than 1");
+                return;
+            }
+        }
+
+        BatchSimulator simulator = new BatchSimulator(player, seed);
+        simulator.setDifficulty(difficulty);
+        System.out.println("  size  density       games       win     steps     games/sec");
+        for (String size : sizes.split(",")) {
+            for (String density : densities.split(",")) {
+                Result result = simulator.run(Integer.parseInt(size.trim()),
+                        Double.parseDouble(density.trim()), games);
+                System.out.println(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * The class <b>BoardCanvas</b> is a view of the board for large games. Instead of
+ * laying out one <b>DotButton</b> per dot, it is a single component that paints the
+ * dots itself, odd rows shifted by half a dot, and maps the mouse clicks back to the
+ * row and column of a dot. Only the dots inside the clip are painted, and after a
+ * move only the dots that changed are repainted. The canvas paints from its own copy
+ * of the types of the dots, updated in update(), so painting never reads the model
+ * while a move is being computed. Large dots are drawn with the
+ * icons of <b>DotIcons</b>, pre-scaled to the size of a dot; small dots are drawn
+ * as plain shapes.
+ */
+
+public class BoardCanvas extends JComponent implements BoardRenderer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * colors of the AVAILABLE, SELECTED and DOT dots
+     */
+    private static final Color[] COLORS = {
+            new Color(200, 200, 200), new Color(255, 190, 0), new Color(30, 110, 230)};
+
+    /**
+     * below this cell size, dots are painted as squares
+     */
+    private static final int MIN_ROUND_CELL = 6;
+
+    /**
+     * from this cell size, dots are painted with the icons
+     */
+    private static final int MIN_ICON_CELL = 12;
+
+    private GameModel gameModel;
+    private GameController gameController;
+    private int size;
+    private int cell;
+    private JScrollPane scrollPane;
+    private int hint = -1;
+    private byte[] types;
+
+    /**
+     * Constructor used for initializing the canvas.
+     *
+     * @param gameModel
+     *            the model of the game (already initialized)
+     * @param gameController
+     *            the controller, to which the clicks are sent
+     * @param cell
+     *            the size in pixels of a dot
+     */
+    public BoardCanvas(GameModel gameModel, GameController gameController, int cell) {
+        this.gameModel = gameModel;
+        this.gameController = gameController;
+        this.cell = cell;
+        size = gameModel.getSize();
+        types = new byte[size * size];
+        setPreferredSize(new Dimension(size * cell + cell / 2, size * cell));
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                click(e.getX(), e.getY());
+            }
+        });
+        scrollPane = new JScrollPane(this);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(Math.max(cell, 16));
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(Math.max(cell, 16));
+    }
+
+    /**
+     * Repaints the dots that changed since the last update, or the whole
+     * visible board after a reset.
+     */
+    public void update() {
+        RepaintEvent event = new RepaintEvent();
+        event.begin();
+        if (gameModel.isAllDirty()) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    types[i * size + j] = (byte) gameModel.getCurrentStatus(i, j);
+                }
+            }
+            repaint();
+        } else {
+            for (int k = 0; k < gameModel.getDirtyCount(); k++) {
+                int index = gameModel.getDirtyCell(k);
+                int i = index / size;
+                int j = index % size;
+                types[index] = (byte) gameModel.getCurrentStatus(i, j);
+                repaint(x(i, j), i * cell, cell, cell);
+            }
+        }
+        if (event.shouldCommit()) {
+            event.boardSize = size;
+            event.full = gameModel.isAllDirty();
+            event.cells = event.full ? size * size : gameModel.getDirtyCount();
+            event.commit();
+        }
+        gameModel.clearDirty();
+    }
+
+    /**
+     * Circles the dot suggested by a hint, and scrolls to it.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void showHint(int row, int column) {
+        clearHint();
+        hint = row * size + column;
+        Rectangle bounds = new Rectangle(x(row, column) - cell, row * cell - cell, 3 * cell, 3 * cell);
+        scrollRectToVisible(bounds);
+        repaint(bounds);
+    }
+
+    /**
+     * Removes the circle of the last hint, if any.
+     */
+    public void clearHint() {
+        if (hint >= 0) {
+            int i = hint / size;
+            int j = hint % size;
+            hint = -1;
+            repaint(x(i, j) - cell, i * cell - cell, 3 * cell, 3 * cell);
+        }
+    }
+
+    /**
+     * Getter method for the component to add to the frame: the canvas inside
+     * a scroll pane.
+     *
+     * @return the scroll pane containing the canvas
+     */
+    public JComponent getComponent() {
+        return scrollPane;
+    }
+
+    /**
+     * Paints the dots that intersect the clip.
+     *
+     * @param g
+     *            the graphics context
+     */
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (cell >= MIN_ROUND_CELL && g instanceof Graphics2D) {
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+
+        int firstRow = Math.max(0, clip.y / cell);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height) / cell);
+        int firstColumn = Math.max(0, (clip.x - cell / 2) / cell);
+        int lastColumn = Math.min(size - 1, (clip.x + clip.width) / cell);
+        int gap = cell >= MIN_ROUND_CELL ? Math.max(1, cell / 10) : 0;
+        if (cell >= MIN_ICON_CELL) {
+            Image[] images = new Image[COLORS.length];
+            for (int type = 0; type < images.length; type++) {
+                images[type] = DotIcons.get(type, cell - 2 * gap).getImage();
+            }
+            for (int i = firstRow; i <= lastRow; i++) {
+                for (int j = firstColumn; j <= lastColumn; j++) {
+                    g.drawImage(images[types[i * size + j]], x(i, j) + gap, i * cell + gap, null);
+                }
+            }
+            paintHint(g);
+            return;
+        }
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                g.setColor(COLORS[types[i * size + j]]);
+                if (cell >= MIN_ROUND_CELL) {
+                    g.fillOval(x(i, j) + gap, i * cell + gap, cell - 2 * gap, cell - 2 * gap);
+                } else {
+                    g.fillRect(x(i, j), i * cell, cell, cell);
+                }
+            }
+        }
+        paintHint(g);
+    }
+
+    /**
+     * Circles the dot of the current hint. The circle is larger than the dot,
+     * so that it remains visible on small dots.
+     *
+     * @param g
+     *            the graphics context
+     */
+    private void paintHint(Graphics g) {
+        if (hint < 0) {
+            return;
+        }
+        int i = hint / size;
+        int j = hint % size;
+        g.setColor(Color.GREEN);
+        int margin = Math.max(2, cell / 2);
+        g.drawOval(x(i, j) - margin, i * cell - margin, cell + 2 * margin, cell + 2 * margin);
+        g.drawOval(x(i, j) - margin + 1, i * cell - margin + 1, cell + 2 * margin - 2, cell + 2 * margin - 2);
+    }
+
+    /**
+     * Computes the left coordinate of a dot. Odd rows are shifted right by half a dot.
+     *
+     * @param i
+     *            the row of the dot
+     * @param j
+     *            the column of the dot
+     * @return the x coordinate in pixels
+     */
+    private int x(int i, int j) {
+        return j * cell + (i % 2 == 0 ? 0 : cell / 2);
+    }
+
+    /**
+     * Finds the dot under a click and sends it to the controller.
+     *
+     * @param px
+     *            the x coordinate of the click
+     * @param py
+     *            the y coordinate of the click
+     */
+    private void click(int px, int py) {
+        int i = py / cell;
+        if (i < 0 || i >= size) {
+            return;
+        }
+        int offset = px - (i % 2 == 0 ? 0 : cell / 2);
+        if (offset < 0) {
+            return;
+        }
+        int j = offset / cell;
+        if (j >= size) {
+            return;
+        }
+        gameController.select(i, j);
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The class <b>BoardPool</b> keeps a few boards of a given size ready in advance, so
+ * that starting a new game does not have to wait for a board to be generated. A
+ * background thread resets spare <b>GameModel</b> instances and puts them in a small
+ * bounded queue. Starting a game swaps a ready board into the model in constant time;
+ * the board of the previous game goes back to the thread, which regenerates it. If no
+ * board is ready yet, swapInto returns at once, so that the event dispatch thread never
+ * waits; awaitInto waits for the board being generated, from another thread.
+ *
+ * The boards are generated from the seed of the pool, one after the other, so a pool
+ * created with the same seed hands out the same sequence of boards.
+ */
+
+public class BoardPool {
+
+    private int size;
+    private BlockingQueue<GameModel> ready;
+    private BlockingQueue<GameModel> recycled;
+    private Thread generator;
+
+    /**
+     * Constructor used for initializing a pool and starting its generator thread.
+     *
+     * @param size
+     *            the size of the boards
+     * @param density
+     *            the probability that a dot is initially selected
+     * @param capacity
+     *            the number of boards kept ready
+     * @param seed
+     *            the seed of the sequence of boards
+     */
+    public BoardPool(int size, double density, int capacity, long seed) {
+        this.size = size;
+        ready = new ArrayBlockingQueue<GameModel>(capacity);
+        recycled = new LinkedBlockingQueue<GameModel>();
+        for (int i = 0; i < capacity; i++) {
+            recycled.add(new GameModel(size, 0L, density));
+        }
+        final SplittableRandom seeds = new SplittableRandom(seed);
+        generator = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        GameModel board = recycled.take();
+                        long start = System.nanoTime();
+                        board.reset(seeds.nextLong());
+                        if (GameMetrics.isEnabled()) {
+                            GameMetrics.get().recordGeneration(System.nanoTime() - start);
+                        }
+                        ready.put(board);
+                    }
+                } catch (InterruptedException e) {
+                    // the pool was closed
+                }
+            }
+        }, "board-pool-" + size);
+        generator.setDaemon(true);
+        generator.setPriority(Thread.MIN_PRIORITY);
+        generator.start();
+    }
+
+    /**
+     * Swaps the next board of the pool into a model, if one is ready. This
+     * never waits.
+     *
+     * @param model
+     *            the model that starts a new game
+     * @return true if a board was swapped in, false if the model has another
+     *            size or no board is ready
+     */
+    public boolean swapInto(GameModel model) {
+        if (model.getSize() != size) {
+            return false;
+        }
+        GameModel board = ready.poll();
+        if (board == null) {
+            return false;
+        }
+        swap(model, board);
+        return true;
+    }
+
+    /**
+     * Swaps the next board of the pool into a model, waiting for it if it is
+     * still being generated. This must not be called on the event dispatch
+     * thread.
+     *
+     * @param model
+     *            the model that starts a new game
+     * @return true if a board was swapped in, false if the model has another
+     *            size or the calling thread was interrupted
+     */
+    public boolean awaitInto(GameModel model) {
+        if (model.getSize() != size) {
+            return false;
+        }
+        GameModel board;
+        try {
+            board = ready.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        swap(model, board);
+        return true;
+    }
+
+    /**
+     * Swaps a ready board into a model, and hands the previous board of the
+     * model back to the generator thread.
+     *
+     * @param model
+     *            the model that starts a new game
+     * @param board
+     *            the ready board
+     */
+    private void swap(GameModel model, GameModel board) {
+        model.swapBoard(board);
+        recycled.add(board);
+    }
+
+    /**
+     * Getter method for the number of boards currently ready.
+     *
+     * @return the number of ready boards
+     */
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    /**
+     * Stops the generator thread.
+     */
+    public void close() {
+        generator.interrupt();
+    }
+}
@@ -0,0 +1,37 @@
+import javax.swing.*;
+
+/**
+ * The interface <b>BoardRenderer</b> is implemented by the components that display the
+ * board of the game: <b>BoardView</b>, which uses one <b>DotButton</b> per dot, and
+ * <b>BoardCanvas</b>, which paints the whole board itself.
+ */
+
+public interface BoardRenderer {
+
+    /**
+     * update the displayed dots based on the current game model
+     */
+    void update();
+
+    /**
+     * Highlights the dot suggested by a hint.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    void showHint(int row, int column);
+
+    /**
+     * Removes the highlight of the last hint, if any.
+     */
+    void clearHint();
+
+    /**
+     * Getter method for the component to add to the frame.
+     *
+     * @return the component displaying the board
+     */
+    JComponent getComponent();
+}
@@ -1,69 +1,127 @@
-import javax.swing.*;
-import javax.swing.border.EmptyBorder;
-import java.awt.*;
-
-/**
- * The class <b>BoardView</b> provides the current view of the board. It extends
- * <b>JPanel</b> and lays out a two dimensional array of <b>DotButton</b> instances.
- *
- * @author Zarif Shahriar
- */
-public class BoardView extends JPanel {
-
-    private DotButton [][] buttons;
-    private GameModel gameModel;
-    protected JPanel panel;
-    private int size;
-
-
-
-    /**
-     * Constructor used for initializing the board. The action listener for
-     * the board's DotButton is the game controller
-     *
-     * @param gameModel
-     *            the model of the game (already initialized)
-     * @param gameController
-     *            the controller
-     */
-
-    public BoardView(GameModel gameModel, GameController gameController) {
-        this.gameModel=gameModel;
-        size = gameModel.getSize();
-        panel = new JPanel();
-        panel.setLayout(new GridLayout(size,size,0,0));
-        buttons=new DotButton[size][size];
-        panel.setVisible(true);
-        for(int i =0;i<size;i++){
-            JPanel row = new JPanel();
-            row.setLayout(new GridLayout(1,1,0,0));
-            row.setVisible(true);
-            if(i%2==0) {
-                row.setBorder(new EmptyBorder(0,40,0,60));
-            }
-            else{
-                row.setBorder(new EmptyBorder(0,60,0,40));
-            }
-            panel.add(row);
-            for(int j=0;j<size;j++){
-                buttons[i][j]= new DotButton(i,j,0);
-                buttons[i][j].addActionListener(gameController);
-                row.add(buttons[i][j]);
-            }
-        }
-
-    }
-
-    /**
-     * update the status of the board's DotButton instances based on the current game model
-     */
-
-    public void update(){
-        for(int i=0;i<size;i++){
-            for(int j=0;j<size;j++){
-                buttons[i][j].setType(gameModel.getCurrentStatus(i,j));
-            }
-        }
-    }
-
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+
+/**
+ * The class <b>BoardView</b> provides the current view of the board. It extends
+ * <b>JPanel</b> and lays out a two dimensional array of <b>DotButton</b> instances.
+ *
+ * @author Zarif Shahriar
+ */
+public class BoardView extends JPanel implements BoardRenderer {
+
+    private DotButton [][] buttons;
+    private GameModel gameModel;
+    protected JPanel panel;
+    private int size;
+    private DotButton hint;
+
+
+
+    /**
+     * Constructor used for initializing the board. The action listener for
+     * the board's DotButton is the game controller
+     *
+     * @param gameModel
+     *            the model of the game (already initialized)
+     * @param gameController
+     *            the controller
+     */
+
+    public BoardView(GameModel gameModel, GameController gameController) {
+        this.gameModel=gameModel;
+        size = gameModel.getSize();
+        panel = new JPanel();
+        panel.setLayout(new GridLayout(size,size,0,0));
+        buttons=new DotButton[size][size];
+        panel.setVisible(true);
+        for(int i =0;i<size;i++){
+            JPanel row = new JPanel();
+            row.setLayout(new GridLayout(1,1,0,0));
+            row.setVisible(true);
+            if(i%2==0) {
+                row.setBorder(new EmptyBorder(0,40,0,60));
+            }
+            else{
+                row.setBorder(new EmptyBorder(0,60,0,40));
+            }
+            panel.add(row);
+            for(int j=0;j<size;j++){
+                buttons[i][j]= new DotButton(i,j,0);
+                buttons[i][j].addActionListener(gameController);
+                row.add(buttons[i][j]);
+            }
+        }
+
+    }
+
+    /**
+     * update the status of the board's DotButton instances based on the current game model.
+     * Only the dots that the model reports as changed are updated; the repaints of the
+     * buttons are coalesced by Swing into a single paint of the board.
+     */
+
+    public void update(){
+        RepaintEvent event = new RepaintEvent();
+        event.begin();
+        if(gameModel.isAllDirty()){
+            for(int i=0;i<size;i++){
+                for(int j=0;j<size;j++){
+                    buttons[i][j].setType(gameModel.getCurrentStatus(i,j));
+                }
+            }
+        }
+        else{
+            for(int k=0;k<gameModel.getDirtyCount();k++){
+                int index = gameModel.getDirtyCell(k);
+                int i = index/size;
+                int j = index%size;
+                buttons[i][j].setType(gameModel.getCurrentStatus(i,j));
+            }
+        }
+        if(event.shouldCommit()){
+            event.boardSize=size;
+            event.full=gameModel.isAllDirty();
+            event.cells=event.full ? size*size : gameModel.getDirtyCount();
+            event.commit();
+        }
+        gameModel.clearDirty();
+    }
+
+    /**
+     * Highlights the DotButton suggested by a hint.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+
+    public void showHint(int row, int column){
+        clearHint();
+        hint = buttons[row][column];
+        hint.setHighlighted(true);
+    }
+
+    /**
+     * Removes the highlight of the last hint, if any.
+     */
+
+    public void clearHint(){
+        if(hint!=null){
+            hint.setHighlighted(false);
+            hint = null;
+        }
+    }
+
+    /**
+     * Getter method for the panel holding the DotButton instances.
+     *
+     * @return the panel to add to the frame
+     */
+
+    public JComponent getComponent(){
+        return panel;
+    }
+
 }
\ No newline at end of file
@@ -1,37 +1,58 @@
-/**
- * The class <b>CircleTheDot</b> launches the game
- *
- * @author Zarif Shahriar
- */
-public class CircleTheDot {
-
-
-    /**
-     * <b>main</b> of the application. Creates the instance of  GameController
-     * and starts the game. If a game size (>4) is passed as parameter, it is
-     * used as the board size. Otherwise, a default value is passed
-     *
-     * @param args
-     *            command line parameters
-     */
-    public static void main(String[] args) {
-        int size = 9;
-        if (args.length == 1) {
-            try{
-                size = Integer.parseInt(args[0]);
-                if(size<4){
-                    System.out.println("Invalid argument, using default...");
-                    size = 9;
-                }
-            } catch(NumberFormatException e){
-                System.out.println("Invalid argument, using default...");
-            }
-        }
-        StudentInfo.display();
-        GameController game = new GameController(size);
-        game.start();
-    }
-
-
-}
-
+import java.util.Locale;
+
+/**
+ * The class <b>CircleTheDot</b> launches the game
+ *
+ * @author Zarif Shahriar
+ */
+public class CircleTheDot {
+
+
+    /**
+     * <b>main</b> of the application. Creates the instance of  GameController
+     * and starts the game. If a game size (>4) is passed as parameter, it is
+     * used as the board size. Otherwise, a default value is passed. If a seed
+     * is passed as second parameter, the boards are generated from it. The
+     * third parameter is the difficulty: normal, hard or expert
+     *
+     * @param args
+     *            command line parameters
+     */
+    public static void main(String[] args) {
+        int size = 9;
+        Long seed = null;
+        if (args.length >= 1) {
+            try{
+                size = Integer.parseInt(args[0]);
+                if(size<4){
+                    System.out.println("Invalid argument, using default...");
+                    size = 9;
+                }
+            } catch(NumberFormatException e){
+                System.out.println("Invalid argument, using default...");
+            }
+        }
+        if (args.length >= 2) {
+            try{
+                seed = Long.parseLong(args[1]);
+            } catch(NumberFormatException e){
+                System.out.println("Invalid seed, using a random one...");
+            }
+        }
+        GameEngine.Difficulty difficulty = GameEngine.Difficulty.NORMAL;
+        if (args.length >= 3) {
+            try{
+                difficulty = GameEngine.Difficulty.valueOf(args[2].toUpperCase(Locale.ROOT));
+            } catch(IllegalArgumentException e){
+                System.out.println("Invalid difficulty, using normal...");
+            }
+        }
+        StudentInfo.display();
+        GameController game = (seed == null) ? new GameController(size) : new GameController(size, seed);
+        game.setDifficulty(difficulty);
+        game.start();
+    }
+
+
+}
+
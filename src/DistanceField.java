@@ -0,0 +1,779 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The class <b>DistanceField</b> stores, for every dot of the board, the length of the
+ * shortest path from that dot to the border, going only through dots that are not
+ * selected. A dot that cannot reach the border has the distance UNREACHABLE.
+ *
+ * The field is built once when a game starts. Afterwards, each time a dot is selected,
+ * only the dots whose shortest path went through the selected dot are repaired: they
+ * are first collected level by level, then their new distances are computed from the
+ * unaffected dots around them, the way a dynamic shortest path algorithm handles the
+ * deletion of a vertex. Alternatively, the whole field can be rebuilt after every
+ * move: this is a single search from the border that gives every distance at once. It
+ * goes over bitsets on small and medium boards. On large boards, it goes over bitsets
+ * too, one level at a time spread over the cores of a fork-join pool, or over a queue
+ * of dots when no pool with several threads is given. The neighbours of the dots are
+ * read from the adjacency table of the <b>Topology</b> of the board.
+ */
+
+public class DistanceField {
+
+    /**
+     * distance of the dots that cannot reach the border
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * largest board, in words of 64 dots, rebuilt with bitsets; past that (about
+     * 256 x 256 dots), a level of the search touches too few dots per word, and
+     * the queue is faster
+     */
+    private static final int MAX_BITSET_WORDS = 1024;
+
+    /**
+     * smallest number of words computed by one task of the parallel rebuild
+     */
+    private static final int GRAIN = 1024;
+
+    /**
+     * number of words a word of the frontier can reach in one level, at most: the
+     * word itself and its neighbours on the same row, the row above and the row below
+     */
+    private static final int SPREAD = 9;
+
+    /**
+     * The ways of updating the field when a dot is selected or deselected
+     */
+    public enum Update {
+        /** only the dots whose distance changed are repaired */
+        REPAIR,
+        /** the whole field is rebuilt from the border */
+        REBUILD
+    }
+
+    private Topology topology;
+    private int[] offsets;
+    private int[] adjacency;
+    private int[] distance;
+    private int[] queue;
+    private int[] affected;
+    private int[] marks;
+    private int stamp;
+    private long[] heap;
+    private int heapSize;
+
+    private int words;
+    private int padding;
+    private int columns;
+    private long[] frontier;
+    private long[] next;
+    private long[] visited;
+    private long[] grid;
+    private long[] notFirstColumn;
+    private long[] notLastColumn;
+    private long[] evenNotFirstColumn;
+    private long[] oddNotLastColumn;
+    private int lastNodes;
+    private int lastQueuePeak;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private long[] selected;
+    private int level;
+    private int[] frontierWords;
+    private int frontierCount;
+    private int[] work;
+    private int workCount;
+    private int[] pending;
+    private int pendingCount;
+    private long remaining;
+    private int[] wordMarks;
+    private int wordStamp;
+    private int lastBottomUpLevels;
+
+    /**
+     * Constructor used for initializing the field for a board of a given size.
+     *
+     * @param size
+     *            the size of the board
+     */
+    public DistanceField(int size) {
+        this(Topology.square(size));
+    }
+
+    /**
+     * Constructor used for initializing the field for a board of a given shape.
+     *
+     * @param topology
+     *            the topology of the board
+     */
+    public DistanceField(Topology topology) {
+        this.topology = topology;
+        offsets = topology.getOffsets();
+        adjacency = topology.getAdjacency();
+        int cells = topology.getCells();
+        distance = new int[cells];
+        queue = new int[cells];
+        affected = new int[cells];
+        marks = new int[cells];
+        heap = new long[64];
+
+        columns = topology.getColumns();
+        words = (cells + 63) >>> 6;
+        padding = (columns + 1) / 64 + 2;
+        frontier = new long[words + 2 * padding];
+        next = new long[words + 2 * padding];
+        visited = new long[words];
+        grid = topology.getGridMask();
+        notFirstColumn = topology.getNotFirstColumnMask();
+        notLastColumn = topology.getNotLastColumnMask();
+        evenNotFirstColumn = topology.getEvenNotFirstColumnMask();
+        oddNotLastColumn = topology.getOddNotLastColumnMask();
+        if (words > MAX_BITSET_WORDS) {
+            frontierWords = new int[words];
+            work = new int[words];
+            pending = new int[words];
+            wordMarks = new int[words];
+        }
+    }
+
+    /**
+     * Constructor used for copying the distances of another field.
+     *
+     * @param other
+     *            the field to copy
+     */
+    public DistanceField(DistanceField other) {
+        this(other.topology);
+        pool = other.pool;
+        System.arraycopy(other.distance, 0, distance, 0, distance.length);
+    }
+
+    /**
+     * Sets the pool that rebuilds the field of large boards, the common pool by
+     * default. A pool of a single thread would only slow the rebuild down, so
+     * the field is then rebuilt on the calling thread.
+     *
+     * @param pool
+     *            the pool, or null to always rebuild on the calling thread
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Recomputes the whole field with a single breadth first search started from
+     * every border dot that is not selected.
+     *
+     * The search goes one level at a time over bitsets, 64 dots per word: the
+     * next frontier is the current frontier shifted towards each of the six
+     * neighbours (the row above and below, the dots on the left and on the
+     * right, and the two diagonals that depend on the parity of the row), minus
+     * the selected and already visited dots. Only the dots that are reached are
+     * visited one by one, to record their distance.
+     *
+     * @param model
+     *            the model of the game
+     */
+    public void rebuild(GameModel model) {
+        if (words > MAX_BITSET_WORDS) {
+            if (pool != null && pool.getParallelism() > 1) {
+                rebuildInParallel(model);
+            } else {
+                rebuildWithQueue(model);
+            }
+            return;
+        }
+        Arrays.fill(distance, UNREACHABLE);
+        lastNodes = 0;
+        lastQueuePeak = 0;
+        int reachedCount = 0;
+        long[] selected = model.getSelectedMask();
+        long[] border = topology.getBorderMask();
+        int lo = words;
+        int hi = -1;
+        for (int w = 0; w < words; w++) {
+            long reached = border[w] & ~selected[w];
+            frontier[padding + w] = reached;
+            visited[w] = reached;
+            if (reached != 0) {
+                lo = Math.min(lo, w);
+                hi = w;
+                reachedCount += Long.bitCount(reached);
+                record(w, reached, 0);
+            }
+        }
+
+        int reach = (columns + 1) / 64 + 1;
+        int up = columns;
+        for (int level = 1; hi >= 0; level++) {
+            lastNodes += reachedCount;
+            lastQueuePeak = Math.max(lastQueuePeak, reachedCount);
+            reachedCount = 0;
+            int from = Math.max(0, lo - reach);
+            int to = Math.min(words - 1, hi + reach);
+            lo = words;
+            hi = -1;
+            for (int w = from; w <= to; w++) {
+                long around = (shifted(w, 1) & notFirstColumn[w])
+                        | (shifted(w, -1) & notLastColumn[w])
+                        | shifted(w, up) | shifted(w, -up)
+                        | ((shifted(w, up + 1) | shifted(w, 1 - up)) & evenNotFirstColumn[w])
+                        | ((shifted(w, up - 1) | shifted(w, -1 - up)) & oddNotLastColumn[w]);
+                long reached = around & grid[w] & ~selected[w] & ~visited[w];
+                next[padding + w] = reached;
+                if (reached != 0) {
+                    visited[w] |= reached;
+                    lo = Math.min(lo, w);
+                    hi = w;
+                    reachedCount += Long.bitCount(reached);
+                    record(w, reached, level);
+                }
+            }
+            for (int w = from; w <= to; w++) {
+                frontier[padding + w] = next[padding + w];
+                next[padding + w] = 0;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the whole field of a large board with a breadth first search over
+     * bitsets, one level at a time, with the pool.
+     *
+     * A level only computes the words that can change, listed in one of two
+     * directions: top-down, the words next to a word of the frontier, while the
+     * frontier is small; or bottom-up, every word that still has an open dot not
+     * visited yet, once the frontier is large compared to the dots left. A word
+     * of the next frontier, and the distances of its dots, are only written by
+     * the task that computes it, from the words of the current frontier around
+     * it, so the tasks of a level need no locks and the field does not depend on
+     * the number of threads. A level of at most GRAIN words is computed by the
+     * calling thread.
+     *
+     * @param model
+     *            the model of the game
+     */
+    private void rebuildInParallel(GameModel model) {
+        Arrays.fill(distance, UNREACHABLE);
+        Arrays.fill(frontier, 0L);
+        Arrays.fill(next, 0L);
+        selected = model.getSelectedMask();
+        long[] border = topology.getBorderMask();
+        frontierCount = 0;
+        pendingCount = 0;
+        remaining = 0;
+        lastNodes = 0;
+        lastQueuePeak = 0;
+        lastBottomUpLevels = 0;
+        int reachedCount = 0;
+        for (int w = 0; w < words; w++) {
+            long reached = border[w] & ~selected[w];
+            frontier[padding + w] = reached;
+            visited[w] = reached;
+            if (reached != 0) {
+                frontierWords[frontierCount++] = w;
+                reachedCount += Long.bitCount(reached);
+                record(w, reached, 0);
+            }
+            long open = grid[w] & ~selected[w] & ~reached;
+            if (open != 0) {
+                pending[pendingCount++] = w;
+                remaining += Long.bitCount(open);
+            }
+        }
+
+        for (level = 1; frontierCount > 0; level++) {
+            lastNodes += reachedCount;
+            lastQueuePeak = Math.max(lastQueuePeak, reachedCount);
+            // the words left to visit are at least remaining / 64, and exactly
+            // pendingCount once the list is brought up to date
+            int spread = SPREAD * frontierCount;
+            if (64L * spread < remaining || compactPending() > spread) {
+                topDown();
+            } else {
+                System.arraycopy(pending, 0, work, 0, pendingCount);
+                workCount = pendingCount;
+                lastBottomUpLevels++;
+            }
+            if (workCount > GRAIN) {
+                pool.invoke(new LevelTask(0, workCount));
+            } else {
+                expand(0, workCount);
+            }
+            for (int k = 0; k < frontierCount; k++) {
+                frontier[padding + frontierWords[k]] = 0L;
+            }
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierCount = 0;
+            reachedCount = 0;
+            for (int k = 0; k < workCount; k++) {
+                long reached = frontier[padding + work[k]];
+                if (reached != 0) {
+                    frontierWords[frontierCount++] = work[k];
+                    reachedCount += Long.bitCount(reached);
+                }
+            }
+            remaining -= reachedCount;
+        }
+        selected = null;
+    }
+
+    /**
+     * Lists the words next to the words of the frontier, each once.
+     */
+    private void topDown() {
+        wordStamp++;
+        if (wordStamp == Integer.MAX_VALUE) {
+            Arrays.fill(wordMarks, 0);
+            wordStamp = 1;
+        }
+        workCount = 0;
+        for (int k = 0; k < frontierCount; k++) {
+            int first = frontierWords[k] << 6;
+            addRange(first - 1, first + 64);
+            addRange(first + columns - 1, first + 64 + columns);
+            addRange(first - columns - 1, first + 64 - columns);
+        }
+    }
+
+    /**
+     * Adds to the work list the words holding a range of dots.
+     *
+     * @param from
+     *            the first dot of the range, which may be before the board
+     * @param to
+     *            the last dot of the range, which may be after the board
+     */
+    private void addRange(int from, int to) {
+        int last = Math.min(words - 1, to >> 6);
+        for (int w = Math.max(0, from >> 6); w <= last; w++) {
+            if (wordMarks[w] != wordStamp) {
+                wordMarks[w] = wordStamp;
+                work[workCount++] = w;
+            }
+        }
+    }
+
+    /**
+     * Drops from the list of words that still have an open dot not visited yet
+     * the words that were completed since it was last brought up to date.
+     *
+     * @return the number of words left in the list
+     */
+    private int compactPending() {
+        int kept = 0;
+        for (int k = 0; k < pendingCount; k++) {
+            int w = pending[k];
+            if ((grid[w] & ~selected[w] & ~visited[w]) != 0) {
+                pending[kept++] = w;
+            }
+        }
+        pendingCount = kept;
+        return pendingCount;
+    }
+
+    /**
+     * Computes the words of the next frontier, and the distances of the dots
+     * they reach, for a part of the work list.
+     *
+     * @param from
+     *            the first entry of the work list
+     * @param to
+     *            the entry after the last one
+     */
+    private void expand(int from, int to) {
+        int up = columns;
+        for (int k = from; k < to; k++) {
+            int w = work[k];
+            long around = (shifted(w, 1) & notFirstColumn[w])
+                    | (shifted(w, -1) & notLastColumn[w])
+                    | shifted(w, up) | shifted(w, -up)
+                    | ((shifted(w, up + 1) | shifted(w, 1 - up)) & evenNotFirstColumn[w])
+                    | ((shifted(w, up - 1) | shifted(w, -1 - up)) & oddNotLastColumn[w]);
+            long reached = around & grid[w] & ~selected[w] & ~visited[w];
+            next[padding + w] = reached;
+            if (reached != 0) {
+                visited[w] |= reached;
+                record(w, reached, level);
+            }
+        }
+    }
+
+    /**
+     * Getter method for the number of levels of the last parallel rebuild that
+     * were computed bottom-up.
+     *
+     * @return the number of levels
+     */
+    public int getLastBottomUpLevels() {
+        return lastBottomUpLevels;
+    }
+
+    /**
+     * Recomputes the whole field with a breadth first search over a queue of dots,
+     * started from every border dot that is not selected.
+     *
+     * @param model
+     *            the model of the game
+     */
+    private void rebuildWithQueue(GameModel model) {
+        Arrays.fill(distance, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        for (int index : topology.getBorderCells()) {
+            if (!model.isBlocked(index)) {
+                distance[index] = 0;
+                queue[tail++] = index;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            int next = distance[current] + 1;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (distance[n] == UNREACHABLE && !model.isBlocked(n)) {
+                    distance[n] = next;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        lastNodes = tail;
+        lastQueuePeak = tail;
+    }
+
+    /**
+     * Computes a word of the frontier moved by a number of dots, so that bit i
+     * of the frontier becomes bit i + shift.
+     *
+     * @param w
+     *            the word of the result
+     * @param shift
+     *            the number of dots, negative to move towards the lower indexes
+     * @return the word
+     */
+    private long shifted(int w, int shift) {
+        int first = (w << 6) - shift;
+        int a = padding + (first >> 6);
+        int b = first & 63;
+        return (frontier[a] >>> b) | ((frontier[a + 1] << 1) << (63 - b));
+    }
+
+    /**
+     * Records the distance of the dots reached in a word of the frontier.
+     *
+     * @param w
+     *            the word
+     * @param reached
+     *            the bits of the dots reached
+     * @param level
+     *            their distance to the border
+     */
+    private void record(int w, long reached, int level) {
+        int base = w << 6;
+        while (reached != 0) {
+            distance[base + Long.numberOfTrailingZeros(reached)] = level;
+            reached &= reached - 1;
+        }
+    }
+
+    /**
+     * Updates the field after the dot at a given index has been selected.
+     *
+     * @param model
+     *            the model of the game, in which the dot is already selected
+     * @param index
+     *            the index of the dot that was selected
+     */
+    public void block(GameModel model, int index) {
+        int old = distance[index];
+        distance[index] = UNREACHABLE;
+        lastNodes = 0;
+        lastQueuePeak = 0;
+        if (old == UNREACHABLE) {
+            return;
+        }
+        nextStamp();
+
+        // collects, level by level, the dots that lost every shortest path
+        int head = 0;
+        int tail = 0;
+        int count = 0;
+        for (int k = offsets[index], end = offsets[index + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (distance[n] == old + 1 && marks[n] != stamp) {
+                marks[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            if (hasSupport(model, current)) {
+                continue;
+            }
+            affected[count++] = current;
+            marks[current] = -stamp;
+            int next = distance[current] + 1;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (distance[n] == next && marks[n] != stamp && marks[n] != -stamp) {
+                    marks[n] = stamp;
+                    queue[tail++] = n;
+                }
+            }
+        }
+
+        lastNodes = tail;
+        lastQueuePeak = tail;
+
+        // gives each affected dot the best distance offered by its unaffected neighbours
+        heapSize = 0;
+        for (int a = 0; a < count; a++) {
+            int current = affected[a];
+            int best = UNREACHABLE;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (marks[n] != -stamp && distance[n] < best && !model.isBlocked(n)) {
+                    best = distance[n];
+                }
+            }
+            distance[current] = (best == UNREACHABLE) ? UNREACHABLE : best + 1;
+            if (distance[current] != UNREACHABLE) {
+                push(distance[current], current);
+            }
+        }
+
+        // propagates the new distances among the affected dots
+        while (heapSize > 0) {
+            lastQueuePeak = Math.max(lastQueuePeak, heapSize);
+            long top = pop();
+            lastNodes++;
+            int d = (int) (top >>> 32);
+            int current = (int) top;
+            if (d != distance[current]) {
+                continue;
+            }
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (marks[n] == -stamp && distance[n] > d + 1) {
+                    distance[n] = d + 1;
+                    push(d + 1, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the field after the dot at a given index has been deselected.
+     * Distances can only get shorter, so they are propagated from that dot
+     * with a breadth first search.
+     *
+     * @param model
+     *            the model of the game, in which the dot is no longer selected
+     * @param index
+     *            the index of the dot that was deselected
+     */
+    public void unblock(GameModel model, int index) {
+        int best = UNREACHABLE;
+        if (model.isBorder(index)) {
+            best = -1;
+        } else {
+            for (int k = offsets[index], end = offsets[index + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (distance[n] < best) {
+                    best = distance[n];
+                }
+            }
+        }
+        if (best == UNREACHABLE) {
+            return;
+        }
+        distance[index] = best + 1;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = index;
+        while (head < tail) {
+            int current = queue[head++];
+            int next = distance[current] + 1;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (distance[n] > next && !model.isBlocked(n)) {
+                    distance[n] = next;
+                    queue[tail++] = n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter method for the number of dots examined by the last call to block
+     * or rebuild: the dots checked for a remaining shortest path and the dots
+     * taken out of the repair heap, or the dots reached from the border.
+     *
+     * @return the number of dots
+     */
+    public int getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Getter method for the largest size reached by the queue, the heap or a
+     * level of the frontier during the last call to block or rebuild.
+     *
+     * @return the number of dots
+     */
+    public int getLastQueuePeak() {
+        return lastQueuePeak;
+    }
+
+    /**
+     * Getter method for the distance of a dot to the border.
+     *
+     * @param index
+     *            the index of the dot
+     * @return the distance, or UNREACHABLE
+     */
+    public int getDistance(int index) {
+        return distance[index];
+    }
+
+    /**
+     * Reads the next step of the blue dot off the field: the first neighbour, in
+     * the order of EscapeSearch, that is one step closer to the border than the
+     * others. This is the same step as the one found by EscapeSearch.
+     *
+     * @param model
+     *            the model of the game
+     * @param dot
+     *            the index of the blue dot
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED
+     */
+    public int nextStep(GameModel model, int dot) {
+        int best = UNREACHABLE;
+        int step = EscapeSearch.TRAPPED;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (distance[n] < best) {
+                best = distance[n];
+                step = n;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Checks if a dot that is about to be examined still has a neighbour
+     * which is one step closer to the border and was not affected.
+     *
+     * @param model
+     *            the model of the game
+     * @param index
+     *            the index of the dot
+     * @return true if the distance of the dot does not change
+     */
+    private boolean hasSupport(GameModel model, int index) {
+        int previous = distance[index] - 1;
+        for (int k = offsets[index], end = offsets[index + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (distance[n] == previous && marks[n] != -stamp && !model.isBlocked(n)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a dot to the repair heap.
+     *
+     * @param d
+     *            the distance of the dot
+     * @param index
+     *            the index of the dot
+     */
+    private void push(int d, int index) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        long entry = ((long) d << 32) | index;
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Removes the dot with the smallest distance from the repair heap.
+     *
+     * @return the distance and the index of the dot, packed in a long
+     */
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    /**
+     * The class <b>LevelTask</b> computes a range of the work list of a level of
+     * the parallel rebuild, splitting it in two while it is larger than GRAIN
+     * words.
+     */
+    private class LevelTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private int from;
+        private int to;
+
+        LevelTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(from, middle), new LevelTask(middle, to));
+            } else {
+                expand(from, to);
+            }
+        }
+    }
+
+    /**
+     * Moves to a new mark, so that the marks never need to be cleared.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class <b>DotIcons</b> is a process-wide cache of the icons of the dots. Each
+ * image of the subdirectory ``Images'' is read and decoded only once, and the icons
+ * scaled to a given size are computed once per size. All the <b>DotButton</b> and
+ * <b>BoardCanvas</b> instances share the same icons.
+ *
+ * Images/ball-0.png => grey icon (AVAILABLE)
+ * Images/ball-1.png => orange icon (SELECTED)
+ * Images/ball-2.png => blue icon (DOT)
+ */
+
+public class DotIcons {
+
+    private static final ImageIcon[] ICONS = load();
+    private static final ConcurrentHashMap<Integer, ImageIcon[]> SCALED = new ConcurrentHashMap<Integer, ImageIcon[]>();
+
+    /**
+     * Getter method for the icon of a type of dot, at the size of the images.
+     *
+     * @param type
+     *            the type of the dot (AVAILABLE, SELECTED or DOT)
+     * @return the shared icon
+     */
+    public static ImageIcon get(int type) {
+        return ICONS[type];
+    }
+
+    /**
+     * Getter method for the icon of a type of dot, scaled to a given size. The
+     * scaled icons are computed the first time a size is requested.
+     *
+     * @param type
+     *            the type of the dot (AVAILABLE, SELECTED or DOT)
+     * @param size
+     *            the width and height of the icon, in pixels
+     * @return the shared icon
+     */
+    public static ImageIcon get(int type, int size) {
+        ImageIcon[] icons = SCALED.get(size);
+        if (icons == null) {
+            icons = new ImageIcon[ICONS.length];
+            for (int i = 0; i < ICONS.length; i++) {
+                icons[i] = scale(ICONS[i], size);
+            }
+            ImageIcon[] previous = SCALED.putIfAbsent(size, icons);
+            if (previous != null) {
+                icons = previous;
+            }
+        }
+        return icons[type];
+    }
+
+    /**
+     * Reads and decodes the three images.
+     *
+     * @return the icons, indexed by type of dot
+     */
+    private static ImageIcon[] load() {
+        ImageIcon[] icons = new ImageIcon[3];
+        for (int i = 0; i < icons.length; i++) {
+            icons[i] = new ImageIcon(DotIcons.class.getResource("/Images/ball-" + i + ".png"));
+        }
+        return icons;
+    }
+
+    /**
+     * Draws an icon into a new image of a given size.
+     *
+     * @param icon
+     *            the icon to scale
+     * @param size
+     *            the width and height of the scaled icon
+     * @return the scaled icon
+     */
+    private static ImageIcon scale(ImageIcon icon, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(icon.getImage(), 0, 0, size, size, null);
+        g.dispose();
+        return new ImageIcon(image);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * The interface <b>DotPolicy</b> is implemented by the strategies of the blue dot. A
+ * policy looks at the model after each move of the player and chooses the next
+ * location of the blue dot, among its open neighbours.
+ *
+ * Whatever its strategy, a policy must step onto the border when one of the open
+ * neighbours of the blue dot is on the border, and must return EscapeSearch.TRAPPED
+ * only when the blue dot cannot reach the border anymore.
+ */
+
+public interface DotPolicy {
+
+    /**
+     * Chooses the next location of the blue dot.
+     *
+     * @param model
+     *            the model of the current game
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    int nextStep(GameModel model);
+
+    /**
+     * Chooses the next location of the blue dot, for a move of the player that
+     * started at a given time. A policy with a time budget counts it from that
+     * time, so that the whole move fits in the budget; the others ignore it.
+     *
+     * @param model
+     *            the model of the current game
+     * @param start
+     *            the time the move started, from System.nanoTime()
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    default int nextStep(GameModel model, long start) {
+        return nextStep(model);
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>EscapeSearch</b> computes the next step of the blue dot. It runs a
+ * breadth first search from the blue dot towards the border of the board and returns
+ * the first step of the shortest path that was found.
+ *
+ * Cells are identified by their packed index (row * columns + column), and their
+ * neighbours are read from the adjacency table of the <b>Topology</b> of the board. The
+ * queue, the parent array and the visited marks are allocated once for a given board
+ * and reused by every call, so a search does not allocate anything.
+ */
+
+public class EscapeSearch {
+
+    /**
+     * returned by the search when the blue dot cannot reach the border
+     */
+    public static final int TRAPPED = -1;
+
+    private int[] offsets;
+    private int[] adjacency;
+    private int[] queue;
+    private int[] parent;
+    private int[] visited;
+    private int stamp;
+    private int lastNodes;
+    private int lastQueuePeak;
+
+    /**
+     * Constructor used for initializing the search buffers for a board of a given size.
+     *
+     * @param size
+     *            the size of the board
+     */
+    public EscapeSearch(int size) {
+        this(Topology.square(size));
+    }
+
+    /**
+     * Constructor used for initializing the search buffers for a board of a given shape.
+     *
+     * @param topology
+     *            the topology of the board
+     */
+    public EscapeSearch(Topology topology) {
+        offsets = topology.getOffsets();
+        adjacency = topology.getAdjacency();
+        queue = new int[topology.getCells()];
+        parent = new int[topology.getCells()];
+        visited = new int[topology.getCells()];
+    }
+
+    /**
+     * Computes the next step of the blue dot on the shortest path to the border.
+     *
+     * @param model
+     *            the current model of the game
+     * @return the index of the next location of the blue dot, or TRAPPED if
+     *            the blue dot cannot reach the border anymore
+     */
+    public int nextStep(GameModel model) {
+        int start = model.getDotIndex();
+        nextStamp();
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = stamp;
+        parent[start] = start;
+
+        lastQueuePeak = 1;
+        while (head < tail) {
+            int current = queue[head++];
+            lastNodes = head;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int next = adjacency[k];
+                if (visited[next] == stamp || model.isBlocked(next)) {
+                    continue;
+                }
+                visited[next] = stamp;
+                parent[next] = current;
+                if (model.isBorder(next)) {
+                    return firstStep(start, next);
+                }
+                queue[tail++] = next;
+            }
+            lastQueuePeak = Math.max(lastQueuePeak, tail - head);
+        }
+        return TRAPPED;
+    }
+
+    /**
+     * Getter method for the number of dots expanded by the last search.
+     *
+     * @return the number of dots
+     */
+    public int getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Getter method for the largest number of dots waiting in the queue during
+     * the last search.
+     *
+     * @return the number of dots
+     */
+    public int getLastQueuePeak() {
+        return lastQueuePeak;
+    }
+
+    /**
+     * Walks the parent array back from the border to find the first step after start.
+     *
+     * @param start
+     *            the index of the blue dot
+     * @param end
+     *            the index of the border dot that was reached
+     * @return the index of the first step of the path
+     */
+    private int firstStep(int start, int end) {
+        int step = end;
+        while (parent[step] != start) {
+            step = parent[step];
+        }
+        return step;
+    }
+
+    /**
+     * Moves to a new visited mark, so that the visited array never needs to be cleared.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+    }
+}
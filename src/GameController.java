@@ -1,300 +1,433 @@
-import java.util.LinkedList;
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-
-/**
- * The class <b>GameController</b> is the controller of the game. It implements 
- * the interface ActionListener to be called back when the player makes a move. It computes
- * the next step of the game, and then updates model and view.
- *
- * @author Zarif Shahriar
- */
-
-
-public class GameController implements ActionListener {
-
-    private GameModel model;
-    private GameView view;
-    private Point[][] targets;
-    private Point[][] selected;
-
-    /**
-     * Constructor used for initializing the controller. It creates the game's view 
-     * and the game's model instances
-     *
-     * @param size
-     *            the size of the board on which the game will be played
-     */
-    public GameController(int size) {
-        model = new GameModel(size);
-        view = new GameView(model,this);
-    }
-
-
-    /**
-     * Starts the game
-     */
-    public void start(){
-        model.reset();
-        view.getBoardView().update();
-    }
-
-
-    /**
-     * resets the game
-     */
-    public void reset(){
-        model.reset();
-        view.getBoardView().update();
-    }
-
-    /**
-     * Callback used when the user clicks a button or one of the dots. 
-     * Implements the logic of the game
-     *
-     * @param e
-     *            the ActionEvent
-     */
-
-    public void actionPerformed(ActionEvent e) {
-        if(e.getSource() == view.quit){
-            System.exit(0);
-        }
-        if(e.getSource() == view.reset){
-            reset();
-        }
-        if(e.getSource() instanceof DotButton){
-           DotButton button = (DotButton)e.getSource();
-           model.select(button.getRow(),button.getColumn());
-           Point start = model.getCurrentDot();
-            getSelected();
-            getTargets();
-            LinkedList<Point> newPath =breadthFirstSearch(start);
-            if(newPath==null){
-                win();
-            }
-            else {
-                Point point = newPath.get(1);
-                model.setCurrentDot(point.getX(), point.getY());
-                view.getBoardView().update();
-                if (inTarget(point)) {
-                    lost();
-                }
-            }
-        }
-    }
-
-    /**
-     * If the player lost it displays the corresponding JOption Pane.
-     */
-    private void lost(){
-        Object[] options = { "Quit", "Play Again" };
-        int selection = JOptionPane.showOptionDialog(null,
-                "You lost! Would you like to play again?",
-                "Quit?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE,
-                null,options,options[0]);
-
-
-        if (selection == JOptionPane.YES_NO_OPTION)
-        {
-            System.exit(0);
-        }
-
-        else{
-            this.reset();
-        }
-    }
-
-    /**
-     * If the player wins it displays the corresponding JOption Pane.
-     */
-    private void win(){
-        Object[] options = { "Quit", "Play Again" };
-        int selection = JOptionPane.showOptionDialog(null,
-                "Congratulations! You won in "+model.getNumberOfSteps()+" steps!\nWould you like to play again?",
-                "Quit?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE,
-                null, options, options[0]);
-
-
-        if (selection == JOptionPane.YES_NO_OPTION)
-        {
-            System.exit(0);
-        }
-
-        else{
-            this.reset();
-        }
-    }
-
-
-    /**
-     * Gets all target dots and stores some in an array.
-     */
-    private void getTargets(){
-        targets=new Point[model.getSize()][model.getSize()];
-        int i=0;
-        int j=0;
-        //adds top border to targets
-        do{
-            targets[i][j] = new Point(i,j);
-            j++;
-        }while(j<model.getSize());
-
-        //adds bottom border to targets
-        i=(model.getSize()-1);
-        j=0;
-        do{
-            targets[i][j] = new Point(i,j);
-            j++;
-        }while(j<model.getSize());
-
-        //adds left border to targets
-        j=0;
-        i=0;
-        do{
-            targets[i][j] = new Point(i,j);
-            i++;
-        }while(i<model.getSize());
-
-        //adds right border to targets
-        j=model.getSize()-1;
-        i=0;
-        do{
-            targets[i][j] = new Point(i,j);
-            i++;
-        }while(i<model.getSize());
-    }
-
-    /**
-     * Gets all selected dots and stores them in an array.
-     */
-    private void getSelected(){
-        selected=new Point[model.getSize()][model.getSize()];
-        for(int i=0;i<model.getSize();i++){
-            for(int j=0;j<model.getSize();j++){
-                if(model.getCurrentStatus(i,j)==1){
-                    selected[i][j]=new Point(i,j);
-                }
-            }
-        }
-    }
-
-   
-   /**
-     * Checks if the neighbouring dot is blocked.
-     * @param a
-     *            the Point a which represents the current blueDot.
-     * @return the boolean value true or false.
-     */
-    private boolean inBlocked(Point a){
-        int x=a.getX();
-        int y= a.getY();
-        for(int i=0;i<model.getSize();i++){
-            for (int j = 0; j < model.getSize(); j++) {
-                if (selected[i][j] != null) {
-                    if ((selected[i][j].getX() == x) && (selected[i][j].getY() == y)) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Checks if the neighbouring dot is one of the target dots.
-     * @param a
-     *            a Point that is being checked.
-     * @return the boolean value true or false.
-     */
-    private boolean inTarget(Point a){
-        int x =a.getX();
-        int y= a.getY();
-        for(int i=0;i<model.getSize();i++){
-            for (int j = 0; j < model.getSize(); j++) {
-                if (targets[i][j] != null) {
-                    if ((targets[i][j].getX() == x) && (targets[i][j].getY() == y)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
-
-    /**
-     * stores the coordinates of the point in the 2d array selected.
-     * @param a
-     *            a Point that is being checked.
-     */
-    private void addInSelected(Point a)
-    {
-        int i = a.getX();
-        int j= a.getY();
-        selected[i][j]=a;
-
-    }
-
-
-    /**
-     * Method used to determine the shortest path to the border of the grid. Using the breadthFirstSearch algorithm.
-     * @param start
-     *            represents the blueDot.
-     * @return null or a linkedlist of q.
-     */
-    private LinkedList<Point> breadthFirstSearch(Point start){
-        int x,y;
-        LinkedList<LinkedList<Point>> queue=new LinkedList<LinkedList<Point>>();
-        LinkedList<Point> path= new LinkedList<Point>();
-        LinkedList<Point> q;
-        path.addLast(start);
-        queue.addLast(path);
-
-        Point c;
-        Point[] p=new Point[6];
-        while(!queue.isEmpty()){
-            q=queue.removeFirst();
-            c=q.getLast();
-            x = c.getX();
-            y = c.getY();
-            if (c.getX() % 2 == 0) {
-                p[0] = new Point(x, y + 1);
-                p[1] = new Point(x, y - 1);
-                p[2] = new Point(x - 1, y);
-                p[3] = new Point(x - 1, y - 1);
-                p[4] = new Point(x + 1, y);
-                p[5] = new Point(x + 1, y - 1);
-            } else {
-                p[0] = new Point(x, y + 1);
-                p[1] = new Point(x, y - 1);
-                p[2] = new Point(x - 1, y);
-                p[3] = new Point(x - 1, y + 1);
-                p[4] = new Point(x + 1, y);
-                p[5] = new Point(x + 1, y + 1);
-            }
-            for (int i = 0; i < 6; i++) {
-                if (!inBlocked(p[i])) {
-                    if (inTarget(p[i])) {
-                        q.addLast(p[i]);
-                        return q;
-                    } else {
-                        LinkedList<Point> temp = new LinkedList<>();
-                        for (int a=0;a<q.size();a++){
-                            temp.add(q.get(a));
-                        }
-                        temp.add(p[i]);
-                        queue.addLast(temp);
-                        addInSelected(p[i]);
-                    }
-
-                }
-
-            }
-        }
-        return null;
-    }
-
-}
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * The class <b>GameController</b> is the controller of the game. It implements 
+ * the interface ActionListener to be called back when the player makes a move. It hands
+ * the move to the <b>GameEngine</b>, and then updates the view.
+ *
+ * The moves are computed on a worker thread, so that the window stays responsive on
+ * large boards. While a move is pending the worker owns the model: the view keeps
+ * showing the last published position, and clicks on the board are ignored. The
+ * result of the move is then published back to the event dispatch thread, which
+ * updates the view from the cells that changed.
+ *
+ * @author Zarif Shahriar
+ */
+
+
+public class GameController implements ActionListener {
+
+    /**
+     * number of boards generated in advance
+     */
+    private static final int POOLED_BOARDS = 2;
+
+    /**
+     * time given to the search of a hint, in nanoseconds
+     */
+    private static final long HINT_BUDGET = 200000000L;
+
+    /**
+     * largest number of moves looked ahead by the search of a hint
+     */
+    private static final int HINT_DEPTH = 12;
+
+    private GameEngine engine;
+    private GameModel model;
+    private GameView view;
+    private HintWorker hint;
+    private ExecutorService mover;
+    private boolean pending;
+    private int ignoredClicks;
+
+    /**
+     * Constructor used for initializing the controller. It creates the game's view 
+     * and the game's model instances
+     *
+     * @param size
+     *            the size of the board on which the game will be played
+     */
+    public GameController(int size) {
+        this(new GameModel(size), new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor used for initializing the controller with boards generated
+     * from a seed, so that a sequence of games can be replayed.
+     *
+     * @param size
+     *            the size of the board on which the game will be played
+     * @param seed
+     *            the seed of the boards
+     */
+    public GameController(int size, long seed) {
+        this(new GameModel(size, seed), seed);
+    }
+
+    /**
+     * Constructor used for initializing the controller around a model. The
+     * boards of the games, the first one included, are generated in advance by
+     * a BoardPool.
+     *
+     * @param model
+     *            the model of the games
+     * @param seed
+     *            the seed of the boards
+     */
+    private GameController(GameModel model, long seed) {
+        this.model = model;
+        engine = new GameEngine(model);
+        engine.setBoardPool(new BoardPool(model.getSize(), model.getDensity(), POOLED_BOARDS, seed));
+        view = new GameView(model,this);
+        GameMetrics.enable();
+        mover = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "blue-dot-mover");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+
+    /**
+     * Sets the difficulty of the games. The moves of the blue dot are computed
+     * on the worker thread, so this must be called before the game starts.
+     *
+     * @param difficulty
+     *            the difficulty
+     */
+    public void setDifficulty(GameEngine.Difficulty difficulty){
+        engine.setDifficulty(difficulty);
+    }
+
+    /**
+     * Starts the game
+     */
+    public void start(){
+        newGame();
+    }
+
+
+    /**
+     * resets the game
+     */
+    public void reset(){
+        if(pending){
+            return;
+        }
+        cancelHint();
+        newGame();
+    }
+
+    /**
+     * Starts a new game on a board of the pool. If no board is ready yet, the
+     * worker thread waits for it while the window stays responsive: the Reset
+     * button is disabled, and clicks on the board are ignored, until the new
+     * board is shown, or until the failure of the worker is reported.
+     */
+    private void newGame(){
+        if(engine.tryNewGame()){
+            repaint();
+            return;
+        }
+        pending = true;
+        view.reset.setEnabled(false);
+        mover.execute(new Runnable() {
+            public void run() {
+                Throwable failure = null;
+                try {
+                    engine.newGame();
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                final Throwable error = failure;
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        if(error!=null){
+                            failed("New game", error);
+                            return;
+                        }
+                        pending = false;
+                        ignoredClicks = 0;
+                        view.reset.setEnabled(true);
+                        repaint();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Reports on the status line that the worker thread failed, and gives the
+     * board and the Reset button back to the player.
+     *
+     * @param operation
+     *            what the worker was doing
+     * @param error
+     *            the exception or error thrown by the worker
+     */
+    private void failed(String operation, Throwable error){
+        pending = false;
+        ignoredClicks = 0;
+        view.reset.setEnabled(true);
+        view.setStatus(operation + " failed: " + error);
+    }
+
+    /**
+     * Updates the board view from the model, and records how long it took.
+     */
+    private void repaint(){
+        long start = System.nanoTime();
+        view.getBoardView().update();
+        GameMetrics.get().recordRepaint(System.nanoTime()-start);
+    }
+
+    /**
+     * Callback used when the user clicks a button or one of the dots. 
+     * Implements the logic of the game
+     *
+     * @param e
+     *            the ActionEvent
+     */
+
+    public void actionPerformed(ActionEvent e) {
+        if(e.getSource() == view.quit){
+            System.exit(0);
+        }
+        if(e.getSource() == view.reset){
+            reset();
+        }
+        if(e.getSource() == view.hint){
+            showHint();
+        }
+        if(e.getSource() instanceof DotButton){
+           DotButton button = (DotButton)e.getSource();
+           select(button.getRow(),button.getColumn());
+        }
+    }
+
+    /**
+     * Plays the move of the player who clicked the dot at (row, column), either
+     * on a DotButton or on the BoardCanvas. The move is computed on the worker
+     * thread; the click is ignored if the previous move is still pending, or
+     * if the dot is already selected or under the blue dot.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void select(final int row, final int column){
+        if(pending){
+            ignoredClicks++;
+            return;
+        }
+        int index = row*model.getSize()+column;
+        if(index==model.getDotIndex() || model.isBlocked(index)){
+            return;
+        }
+        cancelHint();
+        pending = true;
+        final long clicked = System.nanoTime();
+        final MoveEvent event = new MoveEvent();
+        event.begin();
+        event.row = row;
+        event.column = column;
+        mover.execute(new Runnable() {
+            public void run() {
+                final long started = System.nanoTime();
+                MoveResult result = null;
+                Throwable failure = null;
+                try {
+                    result = engine.select(row,column);
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                final MoveResult move = result;
+                final Throwable error = failure;
+                final long computed = System.nanoTime();
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        moved(move, error, event, clicked, started, computed);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Applies the result of a move on the event dispatch thread, once the
+     * worker thread is done with the model.
+     *
+     * @param result
+     *            the outcome of the move, or null if it failed
+     * @param error
+     *            what the worker thread threw if the move failed, or null
+     * @param event
+     *            the flight recorder event of the move, started at the click
+     * @param clicked
+     *            the time of the click, in nanoseconds
+     * @param started
+     *            the time the worker started the move
+     * @param computed
+     *            the time the worker finished the move
+     */
+    private void moved(MoveResult result, Throwable error, MoveEvent event, long clicked, long started,
+            long computed){
+        event.ignoredClicks = ignoredClicks;
+        if(result==null){
+            failed("Move", error);
+            event.outcome = "FAILED";
+            event.commit();
+            return;
+        }
+        pending = false;
+        long published = System.nanoTime();
+        view.setStatus(String.format("Move: queued %.1f ms, computed %.1f ms, shown after %.1f ms%s",
+                (started-clicked)/1e6, (computed-started)/1e6, (published-clicked)/1e6,
+                ignoredClicks>0 ? " (" + ignoredClicks + " clicks ignored)" : ""));
+        ignoredClicks = 0;
+        event.outcome = result.getStatus().name();
+        if(result.getStatus()==MoveResult.Status.WON){
+            GameMetrics.get().recordMove(System.nanoTime()-clicked);
+            event.commit();
+            win();
+        }
+        else {
+            repaint();
+            GameMetrics.get().recordMove(System.nanoTime()-clicked);
+            event.commit();
+            if (result.getStatus()==MoveResult.Status.LOST) {
+                lost();
+            }
+        }
+    }
+
+    /**
+     * Starts looking for the best dot to select, in the background. The dot is
+     * highlighted when the search is over, which takes at most HINT_BUDGET.
+     */
+    public void showHint(){
+        cancelHint();
+        if(pending || engine.isOver()){
+            return;
+        }
+        hint = new HintWorker(new GameModel(model));
+        hint.execute();
+    }
+
+    /**
+     * Stops the search of a hint, if one is running, and removes the highlight
+     * of the last hint.
+     */
+    private void cancelHint(){
+        if(hint!=null){
+            hint.stop();
+            hint.cancel(false);
+            hint = null;
+        }
+        view.getBoardView().clearHint();
+    }
+
+    /**
+     * The class <b>HintWorker</b> runs a Solver on a copy of the position, off the
+     * event dispatch thread, and highlights the dot it suggests.
+     */
+    private class HintWorker extends SwingWorker<Integer, Void> {
+
+        private GameModel position;
+        private volatile Solver solver;
+        private volatile boolean stopped;
+
+        HintWorker(GameModel position) {
+            this.position = position;
+        }
+
+        protected Integer doInBackground() {
+            solver = new Solver(position);
+            if(stopped){
+                return Solver.NO_MOVE;
+            }
+            return solver.solve(HINT_DEPTH, HINT_BUDGET);
+        }
+
+        /**
+         * Makes the search return as soon as possible.
+         */
+        void stop() {
+            stopped = true;
+            Solver s = solver;
+            if(s!=null){
+                s.cancel();
+            }
+        }
+
+        protected void done() {
+            if(isCancelled() || hint!=this){
+                return;
+            }
+            hint = null;
+            try {
+                int move = get();
+                if(move!=Solver.NO_MOVE){
+                    view.getBoardView().showHint(move/model.getSize(), move%model.getSize());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                view.setStatus("Hint failed: " + e.getCause());
+            }
+        }
+    }
+
+    /**
+     * If the player lost it displays the corresponding JOption Pane.
+     */
+    private void lost(){
+        Object[] options = { "Quit", "Play Again" };
+        int selection = JOptionPane.showOptionDialog(null,
+                "You lost! Would you like to play again?",
+                "Quit?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null,options,options[0]);
+
+
+        if (selection == JOptionPane.YES_NO_OPTION)
+        {
+            System.exit(0);
+        }
+
+        else{
+            this.reset();
+        }
+    }
+
+    /**
+     * If the player wins it displays the corresponding JOption Pane.
+     */
+    private void win(){
+        Object[] options = { "Quit", "Play Again" };
+        int selection = JOptionPane.showOptionDialog(null,
+                "Congratulations! You won in "+model.getNumberOfSteps()+" steps!\nWould you like to play again?",
+                "Quit?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE,
+                null, options, options[0]);
+
+
+        if (selection == JOptionPane.YES_NO_OPTION)
+        {
+            System.exit(0);
+        }
+
+        else{
+            this.reset();
+        }
+    }
+
+}
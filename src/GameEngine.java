@@ -0,0 +1,294 @@
+
+/**
+ * The class <b>GameEngine</b> implements the rules of the game without any user
+ * interface. It owns a <b>GameModel</b>, applies the moves of the player and answers
+ * them with the moves of the blue dot. It never opens a window or a dialog, so games
+ * can be played from simulations, tests or servers as well as from the controller.
+ *
+ * The moves of the blue dot are chosen by a <b>DotPolicy</b>, which depends on the
+ * difficulty of the game.
+ */
+
+public class GameEngine {
+
+    /**
+     * The difficulties of the game
+     */
+    public enum Difficulty {
+        /** the blue dot takes the first shortest path to the border */
+        NORMAL,
+        /** the blue dot takes the shortest path with the most escape routes */
+        HARD,
+        /** the blue dot looks a few moves ahead, within a time budget */
+        EXPERT
+    }
+
+    /**
+     * time given to a move of the expert game, the step of the blue dot included,
+     * in nanoseconds
+     */
+    public static final long EXPERT_BUDGET = 50000000L;
+
+    /**
+     * largest number of rounds looked ahead by the blue dot in the expert game
+     */
+    private static final int EXPERT_DEPTH = 8;
+
+    private GameModel model;
+    private boolean over;
+    private BoardPool pool;
+    private Difficulty difficulty = Difficulty.NORMAL;
+    private DotPolicy policy = new ShortestPathPolicy();
+
+    /**
+     * Constructor used for starting a game on a board of a given size, with a
+     * board that cannot be reproduced.
+     *
+     * @param size
+     *            the size of the board
+     */
+    public GameEngine(int size) {
+        model = new GameModel(size);
+        newGame();
+    }
+
+    /**
+     * Constructor used for starting a game on a board of a given size, generated
+     * from a seed.
+     *
+     * @param size
+     *            the size of the board
+     * @param seed
+     *            the seed of the board
+     */
+    public GameEngine(int size, long seed) {
+        model = new GameModel(size, seed);
+        newGame();
+    }
+
+    /**
+     * Constructor used for starting a game on a board of a given size, generated
+     * from a seed, where each dot is initially selected with a given probability.
+     *
+     * @param size
+     *            the size of the board
+     * @param seed
+     *            the seed of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public GameEngine(int size, long seed, double density) {
+        model = new GameModel(size, seed, density);
+        newGame();
+    }
+
+    /**
+     * Constructor used for starting a game on a board of a given shape, generated
+     * from a seed, where each dot is initially selected with a given probability.
+     *
+     * @param topology
+     *            the shape of the board
+     * @param seed
+     *            the seed of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public GameEngine(Topology topology, long seed, double density) {
+        model = new GameModel(topology, seed, density);
+        newGame();
+    }
+
+    /**
+     * Constructor used for playing on a given model, for instance with the
+     * boards of a BoardPool. No game is started: the first one starts with
+     * newGame() or tryNewGame().
+     *
+     * @param model
+     *            the model of the games
+     */
+    public GameEngine(GameModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Starts a new game on the next board of the pool, waiting for it if it is
+     * still being generated, or on the next board of the model if there is no
+     * pool.
+     */
+    public void newGame() {
+        long start = System.nanoTime();
+        if (pool == null || !pool.awaitInto(model)) {
+            model.reset();
+        }
+        started(start);
+    }
+
+    /**
+     * Starts a new game on a board of the pool, only if one is ready, so that
+     * it can be called on the event dispatch thread.
+     *
+     * @return true if the game started, false if no board is ready and the
+     *            current game goes on
+     */
+    public boolean tryNewGame() {
+        long start = System.nanoTime();
+        if (pool == null || !pool.swapInto(model)) {
+            return false;
+        }
+        started(start);
+        return true;
+    }
+
+    /**
+     * Marks the game as started, and records how long it took to start it.
+     *
+     * @param start
+     *            the time the game started to be set up, in nanoseconds
+     */
+    private void started(long start) {
+        over = false;
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.get().recordReset(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sets the pool from which the boards of the next games are taken.
+     *
+     * @param pool
+     *            the pool of ready boards, or null to generate every board
+     *            when a game starts
+     */
+    public void setBoardPool(BoardPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the difficulty of the game, from the next move of the blue dot.
+     *
+     * @param difficulty
+     *            the difficulty
+     */
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+        switch (difficulty) {
+        case HARD:
+            policy = new MostRoutesPolicy();
+            break;
+        case EXPERT:
+            policy = new LookaheadPolicy(EXPERT_BUDGET, EXPERT_DEPTH);
+            break;
+        default:
+            policy = new ShortestPathPolicy();
+            break;
+        }
+    }
+
+    /**
+     * Getter method for the difficulty of the game.
+     *
+     * @return the difficulty
+     */
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Starts a new game on a board generated from a given seed. The buffers of
+     * the previous game are reused.
+     *
+     * @param seed
+     *            the seed of the board
+     */
+    public void newGame(long seed) {
+        model.reset(seed);
+        over = false;
+    }
+
+    /**
+     * Selects the dot at (row, column) and moves the blue dot one step closer
+     * to the border.
+     *
+     * @param row
+     *            the row of the selected dot
+     * @param column
+     *            the column of the selected dot
+     * @return the outcome of the move
+     * @throws IllegalArgumentException
+     *            if the dot is outside of the board, already selected, or
+     *            under the blue dot
+     */
+    public MoveResult select(int row, int column) {
+        if (over) {
+            throw new IllegalStateException("The game is over");
+        }
+        int index = row * model.getSize() + column;
+        if (row < 0 || row >= model.getRows() || column < 0 || column >= model.getSize()
+                || !model.getTopology().isCell(index)) {
+            throw new IllegalArgumentException("Outside of the board: " + row + ", " + column);
+        }
+        if (index == model.getDotIndex()) {
+            throw new IllegalArgumentException("The blue dot is on " + row + ", " + column);
+        }
+        if (model.isBlocked(index)) {
+            throw new IllegalArgumentException("Already selected: " + row + ", " + column);
+        }
+        long start = System.nanoTime();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        model.select(row, column);
+        int step = model.isDotEnclosed() ? EscapeSearch.TRAPPED : policy.nextStep(model, start);
+        if (GameMetrics.isEnabled()) {
+            GameMetrics.get().recordSearch(System.nanoTime() - start,
+                    model.getSearchNodes(), model.getSearchQueuePeak());
+        }
+        if (event.shouldCommit()) {
+            event.boardSize = model.getSize();
+            event.nodes = model.getSearchNodes();
+            event.queuePeak = model.getSearchQueuePeak();
+            event.pathLength = (step == EscapeSearch.TRAPPED) ? -1 : model.getDistanceToBorder(step) + 1;
+            event.commit();
+        }
+        if (step == EscapeSearch.TRAPPED) {
+            over = true;
+            int dot = model.getDotIndex();
+            return new MoveResult(MoveResult.Status.WON, dot / model.getSize(), dot % model.getSize());
+        }
+        int size = model.getSize();
+        model.setCurrentDot(step);
+        if (model.isBorder(step)) {
+            over = true;
+            return new MoveResult(MoveResult.Status.LOST, step / size, step % size);
+        }
+        return new MoveResult(MoveResult.Status.MOVED, step / size, step % size);
+    }
+
+    /**
+     * Checks if the player has already lost the current game, although it is not
+     * over: the blue dot is next to two open border dots, so whatever dot the
+     * player selects, the blue dot escapes on its next step.
+     *
+     * @return true if the next move of the player is bound to be LOST
+     */
+    public boolean isLostCause() {
+        return !over && model.getDotExits() >= 2;
+    }
+
+    /**
+     * Checks if the current game is over.
+     *
+     * @return true if the player won or lost the current game
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * Getter method for the model of the game.
+     *
+     * @return the model
+     */
+    public GameModel getModel() {
+        return model;
+    }
+}
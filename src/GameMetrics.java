@@ -0,0 +1,227 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The class <b>GameMetrics</b> collects the latency and effort of the hot paths of the
+ * game: the moves as seen by the player, the searches of the next step of the blue
+ * dot, the updates of the board view and the generation of new boards. The measures
+ * are kept in <b>LatencyHistogram</b> instances and published as a JMX MBean named
+ * CircleTheDot:type=GameMetrics.
+ *
+ * Recording is disabled until enable() is called, so that headless simulations do
+ * not pay for it; the hot paths check isEnabled() before reading the clock.
+ */
+
+public class GameMetrics implements GameMetricsMBean {
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+    private static volatile boolean enabled;
+
+    private LatencyHistogram moves = new LatencyHistogram();
+    private LatencyHistogram searches = new LatencyHistogram();
+    private LatencyHistogram repaints = new LatencyHistogram();
+    private LatencyHistogram resets = new LatencyHistogram();
+    private LatencyHistogram generations = new LatencyHistogram();
+    private AtomicLong searchNodes = new AtomicLong();
+    private volatile long lastSearchNodes;
+    private AtomicLong searchQueuePeak = new AtomicLong();
+
+    /**
+     * Getter method for the instance shared by the whole process.
+     *
+     * @return the metrics
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if the measures are being recorded.
+     *
+     * @return true if enable() was called
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts recording the measures and registers the MBean with the platform
+     * MBean server. Calling it more than once has no further effect.
+     */
+    public static synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        enabled = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName("CircleTheDot:type=GameMetrics"));
+        } catch (JMException e) {
+            System.out.println("Could not register the game metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the latency of a move, from the click to the updated board.
+     *
+     * @param nanos
+     *            the latency, in nanoseconds
+     */
+    public void recordMove(long nanos) {
+        moves.record(nanos);
+    }
+
+    /**
+     * Records a search of the next step of the blue dot.
+     *
+     * @param nanos
+     *            the duration of the search, in nanoseconds
+     * @param nodes
+     *            the number of cells expanded by the search
+     * @param queuePeak
+     *            the largest size reached by the queue of the search
+     */
+    public void recordSearch(long nanos, long nodes, long queuePeak) {
+        searches.record(nanos);
+        searchNodes.addAndGet(nodes);
+        lastSearchNodes = nodes;
+        long previous = searchQueuePeak.get();
+        while (queuePeak > previous && !searchQueuePeak.compareAndSet(previous, queuePeak)) {
+            previous = searchQueuePeak.get();
+        }
+    }
+
+    /**
+     * Records an update of the board view.
+     *
+     * @param nanos
+     *            the duration of the update, in nanoseconds
+     */
+    public void recordRepaint(long nanos) {
+        repaints.record(nanos);
+    }
+
+    /**
+     * Records the start of a new game.
+     *
+     * @param nanos
+     *            the time taken to get the new board, in nanoseconds
+     */
+    public void recordReset(long nanos) {
+        resets.record(nanos);
+    }
+
+    /**
+     * Records the generation of a board, in the game or in a BoardPool.
+     *
+     * @param nanos
+     *            the duration of the generation, in nanoseconds
+     */
+    public void recordGeneration(long nanos) {
+        generations.record(nanos);
+    }
+
+    public long getMoveCount() {
+        return moves.getCount();
+    }
+
+    public double getMoveLatencyP50() {
+        return micros(moves.getPercentile(50));
+    }
+
+    public double getMoveLatencyP99() {
+        return micros(moves.getPercentile(99));
+    }
+
+    public double getMoveLatencyP999() {
+        return micros(moves.getPercentile(99.9));
+    }
+
+    public double getMoveLatencyMax() {
+        return micros(moves.getMax());
+    }
+
+    public long getSearchCount() {
+        return searches.getCount();
+    }
+
+    public double getSearchTimeP50() {
+        return micros(searches.getPercentile(50));
+    }
+
+    public double getSearchTimeP99() {
+        return micros(searches.getPercentile(99));
+    }
+
+    public double getSearchTimeMax() {
+        return micros(searches.getMax());
+    }
+
+    public long getSearchNodesTotal() {
+        return searchNodes.get();
+    }
+
+    public long getSearchNodesLast() {
+        return lastSearchNodes;
+    }
+
+    public long getSearchQueuePeak() {
+        return searchQueuePeak.get();
+    }
+
+    public long getRepaintCount() {
+        return repaints.getCount();
+    }
+
+    public double getRepaintTimeP50() {
+        return micros(repaints.getPercentile(50));
+    }
+
+    public double getRepaintTimeP99() {
+        return micros(repaints.getPercentile(99));
+    }
+
+    public long getResetCount() {
+        return resets.getCount();
+    }
+
+    public double getResetTimeP50() {
+        return micros(resets.getPercentile(50));
+    }
+
+    public double getResetTimeP99() {
+        return micros(resets.getPercentile(99));
+    }
+
+    public long getGenerationCount() {
+        return generations.getCount();
+    }
+
+    public double getGenerationTimeP99() {
+        return micros(generations.getPercentile(99));
+    }
+
+    public void clear() {
+        moves.clear();
+        searches.clear();
+        repaints.clear();
+        resets.clear();
+        generations.clear();
+        searchNodes.set(0);
+        lastSearchNodes = 0;
+        searchQueuePeak.set(0);
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos
+     *            a duration in nanoseconds
+     * @return the duration in microseconds
+     */
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
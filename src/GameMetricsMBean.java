@@ -0,0 +1,74 @@
+
+/**
+ * The interface <b>GameMetricsMBean</b> is the management interface of
+ * <b>GameMetrics</b>, as seen from JMX clients such as JConsole or VisualVM. All the
+ * durations are in microseconds.
+ */
+
+public interface GameMetricsMBean {
+
+    /** @return the number of moves shown to the player */
+    long getMoveCount();
+
+    /** @return the median latency from a click to the updated board */
+    double getMoveLatencyP50();
+
+    /** @return the 99th percentile of the latency from a click to the updated board */
+    double getMoveLatencyP99();
+
+    /** @return the 99.9th percentile of the latency from a click to the updated board */
+    double getMoveLatencyP999();
+
+    /** @return the longest latency from a click to the updated board */
+    double getMoveLatencyMax();
+
+    /** @return the number of searches of the next step of the blue dot */
+    long getSearchCount();
+
+    /** @return the median duration of a search */
+    double getSearchTimeP50();
+
+    /** @return the 99th percentile of the duration of a search */
+    double getSearchTimeP99();
+
+    /** @return the longest search */
+    double getSearchTimeMax();
+
+    /** @return the number of cells expanded by all the searches */
+    long getSearchNodesTotal();
+
+    /** @return the number of cells expanded by the last search */
+    long getSearchNodesLast();
+
+    /** @return the largest queue used by a search */
+    long getSearchQueuePeak();
+
+    /** @return the number of updates of the board view */
+    long getRepaintCount();
+
+    /** @return the median duration of an update of the board view */
+    double getRepaintTimeP50();
+
+    /** @return the 99th percentile of the duration of an update of the board view */
+    double getRepaintTimeP99();
+
+    /** @return the number of games started */
+    long getResetCount();
+
+    /** @return the median duration of starting a game */
+    double getResetTimeP50();
+
+    /** @return the 99th percentile of the duration of starting a game */
+    double getResetTimeP99();
+
+    /** @return the number of boards generated */
+    long getGenerationCount();
+
+    /** @return the 99th percentile of the duration of generating a board */
+    double getGenerationTimeP99();
+
+    /**
+     * Forgets every recorded measure.
+     */
+    void clear();
+}
@@ -1,224 +1,695 @@
-import java.util.Random;
-
-/**
- * The class <b>GameModel</b> holds the model, the state of the systems.
- * It stores the followiung information:
- * - the current location of the blue dot
- * - the state of all the dots on the board (available, selected or
- *  occupied by the blue dot
- * - the size of the board
- * - the number of steps since the last reset
- *
- * The model provides all of this informations to the other classes trough
- *  appropriate Getters.
- * The controller can also update the model through Setters.
- * Finally, the model is also in charge of initializing the game
- *
- * @author Zarif Shahriar 
- */
-public class GameModel {
-
-
-    /**
-     * predefined values to capture the state of a point
-     */
-    public static final int AVAILABLE 	= 0;
-    public static final int SELECTED 	= 1;
-    public static final int DOT 		= 2;
-
-// ADD YOUR INSTANCE VARIABLES HERE
-
-    private int sizeOfGame;
-    private int steps;
-    private int status[][];
-    private Point blueDot;
-
-    /**
-     * Constructor to initialize the model to a given size of board.
-     *
-     * @param size
-     *            the size of the board
-     */
-    public GameModel(int size) {
-        sizeOfGame=size;
-        status = new int[size][size];
-        }
-
-
-
-    /**
-     * Resets the model to (re)start a game. The previous game (if there is one)
-     * is cleared up . The blue dot is positioned as per instructions, and each
-     * dot of the board is either AVAILABLE, or SELECTED (with
-     * a probability 1/INITIAL_PROBA). The number of steps is reset.
-     */
-    public void reset(){
-        initializeGame();
-        initializeRandomDots();
-        initializeBlueDot();
-        steps=0;
-    }
-
-    /**
-     * generates a random number between 0 and n.
-     * @param n
-     *            the integer n.*
-     * @return the random number generated.
-     */
-    private int random(int n){
-        Random ran = new Random();
-        return (ran.nextInt(n));
-    }
-
-	/**
-     * Initializes Game as per instructions.
-     */
-    private void initializeGame(){
-        for (int i=0;i<sizeOfGame;i++) {
-            for (int j = 0; j < sizeOfGame; j++) {
-                status[i][j] = AVAILABLE;
-            }
-        }
-    }
-
-    /**
-     * Initializes BlueDot as per instructions.
-     */
-    private void initializeBlueDot(){
-        int x,y,a,b;
-        do {
-            if (sizeOfGame % 2 == 0) {
-                //x coordinate randomly chosen
-                a = random(2);
-                if (a == 0) {
-                    x = sizeOfGame / 2;
-                } else {
-                    x = (sizeOfGame / 2) - 1;
-                }
-
-                //y coordinate randomly chosen
-                b = random(2);
-                if (b == 0) {
-                    y = sizeOfGame / 2;
-                } else {
-                    y = (sizeOfGame / 2) - 1;
-                }
-            } else {
-                //x coordinate randomly chosen
-                a = random(3);
-                if (a == 0) {
-                    x = sizeOfGame / 2;
-                } else if (a == 1) {
-                    x = (sizeOfGame / 2) + 1;
-                } else {
-                    x = (sizeOfGame / 2) - 1;
-                }
-
-                //y coord randomly chosen
-                b = random(3);
-                if (b == 0) {
-                    y = sizeOfGame / 2;
-                } else if (b == 1) {
-                    y = (sizeOfGame / 2) + 1;
-                } else {
-                    y = (sizeOfGame / 2) - 1;
-                }
-            }
-        } while(status[x][y]==1);
-
-        setCurrentDot(x,y);
-    }
-
-    /**
-     * Initializes random dots as per instructions.
-     */
-    private void initializeRandomDots(){
-        int x=random(10);
-        for(int i=0;i<status.length;i++){
-            for (int j=0;j<status.length;j++){
-                int y=random(10);
-                if(y==x){
-                    select(i,j);
-                }
-            }
-        }
-    }
-
-
-    /**
-     * Getter <b>class</b> method for the size of the game
-     *
-     * @return the value of the attribute sizeOfGame
-     */
-    public  int getSize(){
-        return sizeOfGame;
-    }
-
-    /**
-     * returns the current status (AVAILABLE, SELECTED or DOT) of a given dot in the game
-     *
-     * @param i
-     *            the x coordinate of the dot
-     * @param j
-     *            the y coordinate of the dot
-     * @return the status of the dot at location (i,j)
-     */
-    public int getCurrentStatus(int i, int j){
-        return status[i][j];
-
-    }
-
-
-    /**
-     * Sets the status of the dot at coordinate (i,j) to SELECTED, and
-     * increases the number of steps by one
-     *
-     * @param i
-     *            the x coordinate of the dot
-     * @param j
-     *            the y coordinate of the dot
-     */
-    public void select(int i, int j){
-        status[i][j]=SELECTED;
-        steps++;
-    }
-
-    /**
-     * Puts the blue dot at coordinate (i,j). Clears the previous location
-     * of the blue dot. If the i coordinate is "-1", it means that the blue
-     * dot exits the board (the player lost)
-     *
-     * @param i
-     *            the new x coordinate of the blue dot
-     * @param j
-     *            the new y coordinate of the blue dot
-     */
-    public void setCurrentDot(int i, int j){
-        for(int a=0; a<status.length;a++){
-            for(int b=0;b<status.length;b++){
-                if(getCurrentStatus(a,b)==DOT){
-                    status[a][b]=0;}
-            }
-        }
-        status[i][j]=DOT;
-        blueDot=new Point(i,j);
-    }
-
-    /**
-     * Getter method for the current blue dot
-     *
-     * @return the location of the curent blue dot
-     */
-    public Point getCurrentDot(){
-        return blueDot;
-    }
-
-    /**
-     * Getter method for the current number of steps
-     *
-     * @return the current number of steps
-     */
-    public int getNumberOfSteps(){
-        return steps;
-    }
-}
+import java.util.SplittableRandom;
+
+/**
+ * The class <b>GameModel</b> holds the model, the state of the systems.
+ * It stores the followiung information:
+ * - the current location of the blue dot
+ * - the state of all the dots on the board (available, selected or
+ *  occupied by the blue dot
+ * - the size and the shape of the board (its <b>Topology</b>)
+ * - the number of steps since the last reset
+ * - the distance from every dot to the border, kept up to date as dots
+ *  are selected
+ * - the dots that changed since the view was last updated
+ *
+ * The model provides all of this informations to the other classes trough
+ *  appropriate Getters.
+ * The controller can also update the model through Setters.
+ * Finally, the model is also in charge of initializing the game
+ *
+ * @author Zarif Shahriar 
+ */
+public class GameModel {
+
+
+    /**
+     * predefined values to capture the state of a point
+     */
+    public static final int AVAILABLE 	= 0;
+    public static final int SELECTED 	= 1;
+    public static final int DOT 		= 2;
+
+    /**
+     * by default, a dot is initially selected with a probability 1/INITIAL_PROBA
+     */
+    public static final int INITIAL_PROBA = 10;
+
+// ADD YOUR INSTANCE VARIABLES HERE
+
+    private int sizeOfGame;
+    private int rows;
+    private Topology topology;
+    private int steps;
+    private long[] selected;
+    private long[] border;
+    private int blueDot = -1;
+    private DistanceField field;
+    private DistanceField.Update update = DistanceField.Update.REPAIR;
+    private SplittableRandom random;
+    private long seed;
+    private double density;
+
+    /**
+     * at most MAX_DIRTY changed dots are recorded between two updates of the
+     * view; past that, the whole board is considered changed
+     */
+    private static final int MAX_DIRTY = 64;
+    private int[] dirty = new int[MAX_DIRTY];
+    private int dirtyCount;
+    private boolean allDirty;
+
+    /**
+     * Constructor to initialize the model to a given size of board, with
+     * random boards that cannot be reproduced.
+     *
+     * @param size
+     *            the size of the board
+     */
+    public GameModel(int size) {
+        this(size, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor to initialize the model to a given size of board. The state
+     * of the dots is stored in bitsets, one bit per dot, indexed by
+     * row * size + column. The boards are generated from the given seed, so
+     * the same seed always gives the same sequence of boards.
+     *
+     * @param size
+     *            the size of the board
+     * @param seed
+     *            the seed of the random boards
+     */
+    public GameModel(int size, long seed) {
+        this(size, seed, 1.0/INITIAL_PROBA);
+    }
+
+    /**
+     * Constructor to initialize the model to a given size of board, with
+     * boards generated from a seed where each dot is initially selected with
+     * a given probability.
+     *
+     * @param size
+     *            the size of the board
+     * @param seed
+     *            the seed of the random boards
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public GameModel(int size, long seed, double density) {
+        this(Topology.square(size), seed, density);
+    }
+
+    /**
+     * Constructor to initialize the model to a board of a given shape, with
+     * boards generated from a seed where each dot is initially selected with
+     * a given probability. The dots of the grid that are not part of the
+     * board are kept selected, so that the blue dot never goes through them.
+     *
+     * @param topology
+     *            the shape of the board
+     * @param seed
+     *            the seed of the random boards
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public GameModel(Topology topology, long seed, double density) {
+        this.topology = topology;
+        sizeOfGame=topology.getColumns();
+        rows=topology.getRows();
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        this.density = density;
+        selected = new long[topology.getHoleMask().length];
+        border = topology.getBorderMask();
+        field = new DistanceField(topology);
+    }
+
+    /**
+     * Constructor to initialize the model as a copy of the current position of
+     * another model, for instance to search moves without touching the game.
+     * The random numbers of the other model are not drawn from: the copy
+     * generates its next boards from the last seed given to the other model.
+     *
+     * @param other
+     *            the model to copy
+     */
+    public GameModel(GameModel other) {
+        sizeOfGame=other.sizeOfGame;
+        rows=other.rows;
+        topology=other.topology;
+        steps=other.steps;
+        selected=other.selected.clone();
+        border=other.border;
+        blueDot=other.blueDot;
+        field=new DistanceField(other.field);
+        update=other.update;
+        seed=other.seed;
+        random=new SplittableRandom(seed);
+        density=other.density;
+        allDirty=true;
+    }
+
+
+    /**
+     * Resets the model to (re)start a game. The previous game (if there is one)
+     * is cleared up . The blue dot is positioned as per instructions, and each
+     * dot of the board is either AVAILABLE, or SELECTED (with
+     * the probability given by the density, 1/INITIAL_PROBA by default). The
+     * number of steps is reset.
+     */
+    public void reset(){
+        ResetEvent event = new ResetEvent();
+        event.begin();
+        allDirty=true;
+        dirtyCount=0;
+        initializeGame();
+        initializeRandomDots();
+        initializeBlueDot();
+        field.rebuild(this);
+        steps=0;
+        if(event.shouldCommit()){
+            event.boardSize=sizeOfGame;
+            event.density=density;
+            event.commit();
+        }
+    }
+
+    /**
+     * Resets the model to start a new game generated from a given seed.
+     *
+     * @param seed
+     *            the seed of the new board
+     */
+    public void reset(long seed){
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        reset();
+    }
+
+    /**
+     * Exchanges the board of this model with the board of another model of
+     * the same topology: the selected dots, the blue dot, the distance field and
+     * the number of steps. Only references are exchanged, so this takes
+     * constant time whatever the size of the board. The whole board of this
+     * model is then considered changed.
+     *
+     * @param other
+     *            a model of the same topology, typically freshly reset
+     */
+    public void swapBoard(GameModel other){
+        if(other.topology!=topology){
+            throw new IllegalArgumentException("Boards of different sizes");
+        }
+        long[] s = selected;
+        selected = other.selected;
+        other.selected = s;
+        DistanceField f = field;
+        field = other.field;
+        other.field = f;
+        int d = blueDot;
+        blueDot = other.blueDot;
+        other.blueDot = d;
+        int n = steps;
+        steps = other.steps;
+        other.steps = n;
+        allDirty=true;
+        dirtyCount=0;
+        other.allDirty=true;
+        other.dirtyCount=0;
+    }
+
+    /**
+     * generates a random number between 0 and n.
+     * @param n
+     *            the integer n.*
+     * @return the random number generated.
+     */
+    private int random(int n){
+        return random.nextInt(n);
+    }
+
+	/**
+     * Initializes Game as per instructions.
+     */
+    private void initializeGame(){
+        System.arraycopy(topology.getHoleMask(), 0, selected, 0, selected.length);
+        blueDot = -1;
+    }
+
+    /**
+     * Initializes BlueDot as per instructions. The dot drawn around the middle
+     * of the board is opened if it was selected, so that a board of any density
+     * has a place for the blue dot.
+     */
+    private void initializeBlueDot(){
+        int x,y;
+        do {
+            x = centre(rows);
+            y = centre(sizeOfGame);
+        } while(!topology.isCell(x*sizeOfGame + y));
+
+        clearBit(selected, x*sizeOfGame + y);
+        setCurrentDot(x,y);
+    }
+
+    /**
+     * Draws one of the coordinates around the middle of the board: one of the
+     * two middle ones if the length is even, or the middle one and its two
+     * neighbours if it is odd.
+     *
+     * @param length
+     *            the number of rows or of columns
+     * @return the coordinate
+     */
+    private int centre(int length){
+        if (length % 2 == 0) {
+            return (random(2) == 0) ? length / 2 : (length / 2) - 1;
+        }
+        int a = random(3);
+        if (a == 0 || length == 1) {
+            return length / 2;
+        } else if (a == 1) {
+            return (length / 2) + 1;
+        }
+        return (length / 2) - 1;
+    }
+
+    /**
+     * Initializes random dots as per instructions. Instead of drawing a number
+     * for every dot, the gaps between two selected dots are drawn from the
+     * matching geometric distribution and the bits are set directly in the
+     * bitset, so only about density * rows * columns numbers are drawn.
+     */
+    private void initializeRandomDots(){
+        long cells = topology.getCells();
+        if(density<=0){
+            return;
+        }
+        if(density>=1){
+            for(int index=0;index<cells;index++){
+                setBit(selected, index);
+            }
+            return;
+        }
+        double logOfMiss = Math.log1p(-density);
+        long index = 0;
+        while(true){
+            index += (long) (Math.log(1.0-random.nextDouble())/logOfMiss);
+            if(index>=cells){
+                return;
+            }
+            setBit(selected, (int) index);
+            index++;
+        }
+    }
+
+
+    /**
+     * Getter <b>class</b> method for the size of the game. This is the number
+     * of columns, which is also the number of rows of a square board.
+     *
+     * @return the value of the attribute sizeOfGame
+     */
+    public  int getSize(){
+        return sizeOfGame;
+    }
+
+    /**
+     * Getter method for the number of rows of the board
+     *
+     * @return the number of rows
+     */
+    public int getRows(){
+        return rows;
+    }
+
+    /**
+     * Getter method for the shape of the board, and the neighbours of its dots
+     *
+     * @return the topology of the board
+     */
+    public Topology getTopology(){
+        return topology;
+    }
+
+    /**
+     * returns the current status (AVAILABLE, SELECTED or DOT) of a given dot in the game
+     *
+     * @param i
+     *            the x coordinate of the dot
+     * @param j
+     *            the y coordinate of the dot
+     * @return the status of the dot at location (i,j)
+     */
+    public int getCurrentStatus(int i, int j){
+        int index = i*sizeOfGame + j;
+        if(index==blueDot){
+            return DOT;
+        }
+        if(testBit(selected, index)){
+            return SELECTED;
+        }
+        return AVAILABLE;
+    }
+
+    /**
+     * Checks if the dot at a given index has been selected, i.e. if the blue
+     * dot cannot go through it.
+     *
+     * @param index
+     *            the index of the dot (row * columns + column)
+     * @return true if the dot is selected
+     */
+    public boolean isBlocked(int index){
+        return testBit(selected, index);
+    }
+
+    /**
+     * Getter method for the bitset of the selected dots, one bit per dot. The
+     * array belongs to the model and must not be modified.
+     *
+     * @return the selected dots
+     */
+    public long[] getSelectedMask(){
+        return selected;
+    }
+
+    /**
+     * Checks if the dot at a given index is on the border of the board.
+     *
+     * @param index
+     *            the index of the dot (row * columns + column)
+     * @return true if the dot is on the border
+     */
+    public boolean isBorder(int index){
+        return testBit(border, index);
+    }
+
+
+    /**
+     * Sets the status of the dot at coordinate (i,j) to SELECTED, and
+     * increases the number of steps by one. The distances of the dots whose
+     * shortest path to the border went through (i,j) are repaired, or the whole
+     * distance field is rebuilt, depending on setFieldUpdate
+     *
+     * @param i
+     *            the x coordinate of the dot
+     * @param j
+     *            the y coordinate of the dot
+     */
+    public void select(int i, int j){
+        int index = i*sizeOfGame + j;
+        if(!isBlocked(index)){
+            setBit(selected, index);
+            if(update==DistanceField.Update.REBUILD){
+                field.rebuild(this);
+            }
+            else{
+                field.block(this, index);
+            }
+            markDirty(index);
+        }
+        steps++;
+    }
+
+    /**
+     * Undoes the selection of the dot at coordinate (i,j): the dot becomes
+     * AVAILABLE again and the number of steps decreases by one. The distances
+     * that get shorter through (i,j) are propagated from it. This is used to
+     * explore moves, not by the game itself.
+     *
+     * @param i
+     *            the x coordinate of the dot
+     * @param j
+     *            the y coordinate of the dot
+     */
+    public void deselect(int i, int j){
+        int index = i*sizeOfGame + j;
+        if(isBlocked(index)){
+            selected[index >>> 6] &= ~(1L << index);
+            if(update==DistanceField.Update.REBUILD){
+                field.rebuild(this);
+            }
+            else{
+                field.unblock(this, index);
+            }
+            markDirty(index);
+        }
+        steps--;
+    }
+
+    /**
+     * Puts the blue dot at coordinate (i,j). Clears the previous location
+     * of the blue dot. If the i coordinate is "-1", it means that the blue
+     * dot exits the board (the player lost)
+     *
+     * @param i
+     *            the new x coordinate of the blue dot
+     * @param j
+     *            the new y coordinate of the blue dot
+     */
+    public void setCurrentDot(int i, int j){
+        setCurrentDot(i*sizeOfGame + j);
+    }
+
+    /**
+     * Puts the blue dot at a given index. Only the previous and the new
+     * locations of the blue dot are touched.
+     *
+     * @param index
+     *            the index (row * columns + column) of the new location
+     */
+    public void setCurrentDot(int index){
+        if(blueDot>=0){
+            markDirty(blueDot);
+        }
+        blueDot=index;
+        markDirty(index);
+    }
+
+    /**
+     * Checks if the whole board has to be redrawn, either because a new game
+     * started or because too many dots changed since the last update.
+     *
+     * @return true if every dot has to be redrawn
+     */
+    public boolean isAllDirty(){
+        return allDirty;
+    }
+
+    /**
+     * Getter method for the number of dots that changed since the last update
+     * of the view. Only meaningful when isAllDirty() is false.
+     *
+     * @return the number of changed dots
+     */
+    public int getDirtyCount(){
+        return dirtyCount;
+    }
+
+    /**
+     * Getter method for one of the dots that changed since the last update of
+     * the view. A dot can be listed more than once.
+     *
+     * @param k
+     *            the number of the changed dot, between 0 and getDirtyCount()-1
+     * @return the index (row * columns + column) of the changed dot
+     */
+    public int getDirtyCell(int k){
+        return dirty[k];
+    }
+
+    /**
+     * Forgets the changed dots, once the view has been updated.
+     */
+    public void clearDirty(){
+        allDirty=false;
+        dirtyCount=0;
+    }
+
+    /**
+     * Records that a dot changed since the last update of the view.
+     *
+     * @param index
+     *            the index of the dot
+     */
+    private void markDirty(int index){
+        if(allDirty){
+            return;
+        }
+        if(dirtyCount==MAX_DIRTY){
+            allDirty=true;
+            return;
+        }
+        dirty[dirtyCount++]=index;
+    }
+
+    /**
+     * Getter method for the current blue dot
+     *
+     * @return the location of the curent blue dot
+     */
+    public Point getCurrentDot(){
+        return new Point(blueDot/sizeOfGame, blueDot%sizeOfGame);
+    }
+
+    /**
+     * Getter method for the index of the current blue dot, which does not
+     * allocate anything
+     *
+     * @return the index (row * columns + column) of the current blue dot
+     */
+    public int getDotIndex(){
+        return blueDot;
+    }
+
+    /**
+     * Computes the next location of the blue dot, on a shortest path to the
+     * border. The step is read off the distance field.
+     *
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    public int getEscapeStep(){
+        return field.nextStep(this, blueDot);
+    }
+
+    /**
+     * Checks if the blue dot is trapped: none of its open neighbours is at a
+     * finite distance from the border in the distance field. This is the same
+     * answer as getEscapeStep() returning EscapeSearch.TRAPPED, in constant
+     * time.
+     *
+     * @return true if the blue dot can no longer reach the border
+     */
+    public boolean isDotEnclosed(){
+        int[] offsets = topology.getOffsets();
+        int[] adjacency = topology.getAdjacency();
+        for(int k=offsets[blueDot];k<offsets[blueDot+1];k++){
+            int n = adjacency[k];
+            if(field.getDistance(n)!=DistanceField.UNREACHABLE){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the open border dots next to the blue dot. With two or more, the
+     * player cannot block them all and the blue dot escapes on its next step.
+     *
+     * @return the number of open neighbours of the blue dot on the border
+     */
+    public int getDotExits(){
+        int[] offsets = topology.getOffsets();
+        int[] adjacency = topology.getAdjacency();
+        int exits = 0;
+        for(int k=offsets[blueDot];k<offsets[blueDot+1];k++){
+            int n = adjacency[k];
+            if(!isBlocked(n) && isBorder(n)){
+                exits++;
+            }
+        }
+        return exits;
+    }
+
+    /**
+     * Getter method for the distance from a dot to the border.
+     *
+     * @param index
+     *            the index of the dot (row * columns + column)
+     * @return the distance, or DistanceField.UNREACHABLE
+     */
+    public int getDistanceToBorder(int index){
+        return field.getDistance(index);
+    }
+
+    /**
+     * Getter method for the number of dots examined when the distance field was
+     * last repaired, by the last call to select.
+     *
+     * @return the number of dots
+     */
+    public int getSearchNodes(){
+        return field.getLastNodes();
+    }
+
+    /**
+     * Getter method for the largest queue used when the distance field was last
+     * repaired, by the last call to select.
+     *
+     * @return the number of dots
+     */
+    public int getSearchQueuePeak(){
+        return field.getLastQueuePeak();
+    }
+
+    /**
+     * Sets how the distance field is updated when a dot is selected: repaired
+     * around the selected dot, or rebuilt from the border. Either way, the
+     * next step of the blue dot and the detection of a trapped blue dot are
+     * both read off the same field.
+     *
+     * @param update
+     *            DistanceField.Update.REPAIR (the default) or REBUILD
+     */
+    public void setFieldUpdate(DistanceField.Update update){
+        this.update=update;
+    }
+
+    /**
+     * Getter method for the probability that a dot is initially selected
+     *
+     * @return the density of the random boards
+     */
+    public double getDensity(){
+        return density;
+    }
+
+    /**
+     * Getter method for the current number of steps
+     *
+     * @return the current number of steps
+     */
+    public int getNumberOfSteps(){
+        return steps;
+    }
+
+    /**
+     * Sets the bit at a given index of a bitset.
+     *
+     * @param bits
+     *            the bitset
+     * @param index
+     *            the index of the bit
+     */
+    private static void setBit(long[] bits, int index){
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears the bit at a given index of a bitset.
+     *
+     * @param bits
+     *            the bitset
+     * @param index
+     *            the index of the bit
+     */
+    private static void clearBit(long[] bits, int index){
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    /**
+     * Tests the bit at a given index of a bitset.
+     *
+     * @param bits
+     *            the bitset
+     * @param index
+     *            the index of the bit
+     * @return true if the bit is set
+     */
+    private static boolean testBit(long[] bits, int index){
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
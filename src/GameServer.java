@@ -0,0 +1,332 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class <b>GameServer</b> hosts many games in one JVM, behind a line protocol on a
+ * local TCP port. Every connection is a session that owns its own <b>GameEngine</b>,
+ * so the sessions share nothing and never lock each other. The commands are:
+ *
+ * NEW size [seed]   starts a game, answers OK size row column (the blue dot)
+ * SELECT row column plays a move, answers MOVED, WON or LOST row column
+ * STATE             answers STATE size steps over rows, the rows separated by '/'
+ *                   with '.' for an available dot, 'x' for a selected one and 'o'
+ *                   for the blue dot
+ * QUIT              answers BYE and closes the session
+ *
+ * Invalid commands, and moves on a selected dot or on the blue dot, are answered with
+ * ERR and a message, and the session goes on.
+ *
+ * The boards of all the sessions together hold at most CELL_BUDGET dots, about 17 bytes
+ * each: a NEW command that would go over it is answered with ERR, so that the memory of
+ * the server stays bounded whatever its clients ask for.
+ *
+ * Each session runs blocking code on its own thread. On a JVM with virtual threads the
+ * sessions run on virtual threads; otherwise they run on platform threads with a small
+ * stack, which is enough for the ten thousand sessions the server is sized for.
+ */
+
+public class GameServer {
+
+    /**
+     * largest board a session can ask for
+     */
+    public static final int MAX_SIZE = 129;
+
+    /**
+     * largest number of dots of the boards of all the sessions together
+     */
+    public static final long CELL_BUDGET = 1L << 23;
+
+    /**
+     * stack size of the session threads when virtual threads are not available
+     */
+    private static final long SESSION_STACK = 128 * 1024;
+
+    /**
+     * size of the buffers of a connection, enough for the commands and for the
+     * state of a small board
+     */
+    private static final int BUFFER = 512;
+
+    private ServerSocket socket;
+    private ExecutorService sessions;
+    private AtomicInteger active = new AtomicInteger();
+    private AtomicInteger opened = new AtomicInteger();
+    private AtomicLong cells = new AtomicLong();
+
+    /**
+     * Constructor used for opening the server on a local port.
+     *
+     * @param port
+     *            the port to listen to, or 0 for any free port
+     * @throws IOException
+     *             if the port cannot be opened
+     */
+    public GameServer(int port) throws IOException {
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        sessions = sessionExecutor();
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a session for each.
+     */
+    public void serve() {
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                connection.setTcpNoDelay(true);
+                sessions.execute(new Session(connection));
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    System.out.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections. The running sessions end when their clients
+     * disconnect.
+     */
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        sessions.shutdown();
+    }
+
+    /**
+     * Getter method for the port of the server.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Getter method for the number of sessions currently connected.
+     *
+     * @return the number of sessions
+     */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    /**
+     * Getter method for the number of dots of the boards of all the sessions.
+     *
+     * @return the number of dots, at most CELL_BUDGET
+     */
+    public long getReservedCells() {
+        return cells.get();
+    }
+
+    /**
+     * Creates the executor of the sessions: one virtual thread per session when
+     * the JVM has them, one small platform thread per session otherwise.
+     *
+     * @return the executor
+     */
+    private ExecutorService sessionExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(null, r, "session-" + opened.incrementAndGet(), SESSION_STACK);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * The class <b>Session</b> plays the games of one connection. Its engine is
+     * created by the first NEW command and reused while the size does not change.
+     */
+    private class Session implements Runnable {
+
+        private Socket connection;
+        private GameEngine engine;
+        private long reserved;
+
+        Session(Socket connection) {
+            this.connection = connection;
+        }
+
+        public void run() {
+            active.incrementAndGet();
+            try (Socket s = connection;
+                    BufferedReader in = new BufferedReader(
+                            new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII), BUFFER);
+                    Writer out = new BufferedWriter(
+                            new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII), BUFFER)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String answer = handle(line.trim());
+                    out.write(answer);
+                    out.write('\n');
+                    out.flush();
+                    if (answer.equals("BYE")) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // the client went away
+            } finally {
+                cells.addAndGet(-reserved);
+                active.decrementAndGet();
+            }
+        }
+
+        /**
+         * Executes one command.
+         *
+         * @param line
+         *            the command
+         * @return the answer to send back
+         */
+        private String handle(String line) {
+            String[] words = line.split("\\s+");
+            try {
+                switch (words[0].toUpperCase(Locale.ROOT)) {
+                case "NEW":
+                    return newGame(words);
+                case "SELECT":
+                    return select(words);
+                case "STATE":
+                    return state();
+                case "QUIT":
+                    return "BYE";
+                default:
+                    return "ERR unknown command " + words[0];
+                }
+            } catch (NumberFormatException e) {
+                return "ERR invalid number " + e.getMessage();
+            } catch (IllegalArgumentException e) {
+                return "ERR " + e.getMessage();
+            } catch (IllegalStateException e) {
+                return "ERR " + e.getMessage();
+            }
+        }
+
+        /**
+         * Starts a new game, reusing the engine if the size is the same. A board
+         * of another size is only created if it fits in the budget of dots of the
+         * server.
+         *
+         * @param words
+         *            the words of the command
+         * @return the answer to send back
+         */
+        private String newGame(String[] words) {
+            if (words.length < 2) {
+                return "ERR usage: NEW size [seed]";
+            }
+            int size = Integer.parseInt(words[1]);
+            if (size < 4 || size > MAX_SIZE) {
+                return "ERR size must be between 4 and " + MAX_SIZE;
+            }
+            long seed = (words.length > 2) ? Long.parseLong(words[2]) : System.nanoTime();
+            if (engine == null || engine.getModel().getSize() != size) {
+                long needed = (long) size * size - reserved;
+                if (cells.addAndGet(needed) > CELL_BUDGET) {
+                    cells.addAndGet(-needed);
+                    return "ERR the server is full, try a smaller board";
+                }
+                reserved += needed;
+                engine = new GameEngine(size, seed);
+            } else {
+                engine.newGame(seed);
+            }
+            int dot = engine.getModel().getDotIndex();
+            return "OK " + size + " " + dot / size + " " + dot % size;
+        }
+
+        /**
+         * Plays a move of the player and the answer of the blue dot.
+         *
+         * @param words
+         *            the words of the command
+         * @return the answer to send back
+         */
+        private String select(String[] words) {
+            if (words.length < 3) {
+                return "ERR usage: SELECT row column";
+            }
+            if (engine == null) {
+                return "ERR no game, send NEW first";
+            }
+            MoveResult result = engine.select(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+            return result.getStatus() + " " + result.getRow() + " " + result.getColumn();
+        }
+
+        /**
+         * Describes the current game on a single line.
+         *
+         * @return the answer to send back
+         */
+        private String state() {
+            if (engine == null) {
+                return "ERR no game, send NEW first";
+            }
+            GameModel model = engine.getModel();
+            int size = model.getSize();
+            StringBuilder answer = new StringBuilder(32 + size * (size + 1));
+            answer.append("STATE ").append(size).append(' ').append(model.getNumberOfSteps())
+                    .append(' ').append(engine.isOver()).append(' ');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    answer.append('/');
+                }
+                for (int j = 0; j < size; j++) {
+                    int status = model.getCurrentStatus(i, j);
+                    answer.append(status == GameModel.DOT ? 'o' : status == GameModel.SELECTED ? 'x' : '.');
+                }
+            }
+            return answer.toString();
+        }
+    }
+
+    /**
+     * Starts a server. Usage: java GameServer [port]
+     *
+     * @param args
+     *            command line parameters
+     * @throws IOException
+     *             if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 7777;
+        if (args.length > 0) {
+            try {
+                port = Integer.parseInt(args[0]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid port, using default...");
+            }
+        }
+        GameServer server = new GameServer(port);
+        System.out.println("Serving games on port " + server.getPort());
+        server.serve();
+    }
+}
@@ -1,65 +1,110 @@
-import javax.swing.*;
-import java.awt.*;
-
-/**
- * The class <b>GameView</b> provides the current view of the entire Game. It extends
- * <b>JFrame</b> and lays out an instance of  <b>BoardView</b> (the actual game) and 
- * two instances of JButton. The action listener for the buttons is the controller.
- *
- * @author Zarif Shahriar
- */
-
-public class GameView extends JFrame {
-
-    private BoardView board;
-    protected JButton quit;
-    protected JButton reset;
-    protected JPanel panel;
-
-    /**
-     * Constructor used for initializing the Frame
-     *
-     * @param model
-     *            the model of the game (already initialized)
-     * @param gameController
-     *            the controller
-     */
-
-    public GameView(GameModel model, GameController gameController) {
-
-        setTitle("Circle The Dot Game");
-        setSize(500,500);
-        setLayout(new BorderLayout());
-
-        board = new BoardView(model,gameController);
-        quit = new JButton("Quit");
-        quit.addActionListener(gameController);
-        reset= new JButton("Reset");
-        reset.addActionListener(gameController);
-
-        panel = new JPanel();
-        panel.add(quit);
-        panel.add(reset);
-        panel.setVisible(true);
-
-        add(panel, BorderLayout.SOUTH);
-        add(board.panel);
-        setVisible(true);
-        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-        setResizable(false);
-        setLocationRelativeTo(null);
-
-
-    }
-
-    /**
-     * Getter method for the attribute board.
-     *
-     * @return a reference to the BoardView instance
-     */
-
-    public BoardView getBoardView(){
-        return board;
-    }
-
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * The class <b>GameView</b> provides the current view of the entire Game. It extends
+ * <b>JFrame</b> and lays out an instance of  <b>BoardView</b> (the actual game) and 
+ * three instances of JButton, above a status line. The action listener for the buttons
+ * is the controller.
+ * Boards larger than MAX_BUTTON_BOARD are displayed with a <b>BoardCanvas</b> instead
+ * of a <b>BoardView</b>.
+ *
+ * @author Zarif Shahriar
+ */
+
+public class GameView extends JFrame {
+
+    /**
+     * largest board displayed with one DotButton per dot
+     */
+    public static final int MAX_BUTTON_BOARD = 40;
+
+    /**
+     * largest size in pixels of the board when it is displayed with a BoardCanvas
+     */
+    private static final int MAX_CANVAS = 800;
+
+    private BoardRenderer board;
+    protected JButton quit;
+    protected JButton reset;
+    protected JButton hint;
+    protected JLabel status;
+    protected JPanel panel;
+
+    /**
+     * Constructor used for initializing the Frame
+     *
+     * @param model
+     *            the model of the game (already initialized)
+     * @param gameController
+     *            the controller
+     */
+
+    public GameView(GameModel model, GameController gameController) {
+
+        setTitle("Circle The Dot Game");
+        setLayout(new BorderLayout());
+
+        if(model.getSize()<=MAX_BUTTON_BOARD){
+            setSize(500,500);
+            board = new BoardView(model,gameController);
+        }
+        else{
+            int cell = Math.max(2, Math.min(20, MAX_CANVAS/model.getSize()));
+            board = new BoardCanvas(model,gameController,cell);
+        }
+        quit = new JButton("Quit");
+        quit.addActionListener(gameController);
+        reset= new JButton("Reset");
+        reset.addActionListener(gameController);
+        hint = new JButton("Hint");
+        hint.addActionListener(gameController);
+
+        panel = new JPanel();
+        panel.add(quit);
+        panel.add(reset);
+        panel.add(hint);
+        status = new JLabel(" ");
+        panel.setVisible(true);
+
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(panel, BorderLayout.CENTER);
+        south.add(status, BorderLayout.SOUTH);
+        add(south, BorderLayout.SOUTH);
+        add(board.getComponent());
+        if(board instanceof BoardCanvas){
+            Dimension canvas = ((BoardCanvas) board).getPreferredSize();
+            board.getComponent().setPreferredSize(new Dimension(
+                    Math.min(canvas.width, MAX_CANVAS)+40, Math.min(canvas.height, MAX_CANVAS)+40));
+            pack();
+        }
+        setVisible(true);
+        setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        setResizable(false);
+        setLocationRelativeTo(null);
+
+
+    }
+
+    /**
+     * Displays a message in the status line, under the buttons.
+     *
+     * @param message
+     *            the message to display
+     */
+
+    public void setStatus(String message){
+        status.setText(message);
+    }
+
+    /**
+     * Getter method for the attribute board.
+     *
+     * @return a reference to the BoardView or BoardCanvas instance
+     */
+
+    public BoardRenderer getBoardView(){
+        return board;
+    }
+
 }
\ No newline at end of file
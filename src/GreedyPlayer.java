@@ -0,0 +1,36 @@
+import java.util.SplittableRandom;
+
+/**
+ * The class <b>GreedyPlayer</b> is a <b>Player</b> that always selects the dot the
+ * blue dot would move to next, right next to the blue dot.
+ */
+
+public class GreedyPlayer implements Player {
+
+    /**
+     * Chooses the next step of the blue dot. When the blue dot is already
+     * trapped, any available neighbour is selected instead.
+     *
+     * @param model
+     *            the model of the current game
+     * @param random
+     *            the random generator of the calling worker
+     * @return the index of the dot to select
+     */
+    public int chooseMove(GameModel model, SplittableRandom random) {
+        int step = model.getEscapeStep();
+        if (step != EscapeSearch.TRAPPED) {
+            return step;
+        }
+        int blueDot = model.getDotIndex();
+        int[] offsets = model.getTopology().getOffsets();
+        int[] adjacency = model.getTopology().getAdjacency();
+        for (int k = offsets[blueDot]; k < offsets[blueDot + 1]; k++) {
+            int n = adjacency[k];
+            if (!model.isBlocked(n)) {
+                return n;
+            }
+        }
+        return blueDot;
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The class <b>LatencyHistogram</b> records durations in nanoseconds into buckets of
+ * logarithmically increasing width, the way HDR histograms do: every power of two is
+ * split into SUB_BUCKETS buckets, so percentiles are exact to about 3% whatever the
+ * range of the values. Recording is lock-free and allocates nothing, so it can be
+ * called from any thread on hot paths.
+ */
+
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private AtomicLong count = new AtomicLong();
+    private AtomicLong total = new AtomicLong();
+    private AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos
+     *            the duration, in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucket(nanos));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        long previous = max.get();
+        while (nanos > previous && !max.compareAndSet(previous, nanos)) {
+            previous = max.get();
+        }
+    }
+
+    /**
+     * Getter method for the number of recorded durations.
+     *
+     * @return the number of durations
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Getter method for the longest recorded duration.
+     *
+     * @return the longest duration, in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Computes the average of the recorded durations.
+     *
+     * @return the average duration, in nanoseconds
+     */
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Computes a percentile of the recorded durations.
+     *
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the highest value of the bucket holding the percentile, in
+     *            nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) {
+                return Math.min(highest(b), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every recorded duration.
+     */
+    public void clear() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Computes the bucket of a value.
+     *
+     * @param value
+     *            a non negative value
+     * @return the index of its bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Computes the highest value that falls in a bucket.
+     *
+     * @param bucket
+     *            the index of the bucket
+     * @return the highest value of the bucket
+     */
+    private static long highest(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
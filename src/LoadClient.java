@@ -0,0 +1,108 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * The class <b>LoadClient</b> is a stand-in client used to load test a <b>GameServer</b>.
+ * It opens many sessions and plays random moves on all of them in rounds: the command
+ * of every session is sent, then every answer is read, so that all the sessions are
+ * busy on the server at the same time. A session whose game is over starts a new one,
+ * and a random move on a dot that is not available is rejected by the server and counted.
+ * It prints the throughput and the percentiles of the latency of the rounds.
+ */
+
+public class LoadClient {
+
+    /**
+     * Opens the sessions and plays the rounds. Usage:
+     * java LoadClient [port] [sessions] [rounds] [size]
+     *
+     * @param args
+     *            command line parameters
+     * @throws IOException
+     *             if a session cannot be opened or fails
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 7777;
+        int count = 1000;
+        int rounds = 100;
+        int size = 11;
+        try {
+            if (args.length > 0) {
+                port = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                count = Integer.parseInt(args[1]);
+            }
+            if (args.length > 2) {
+                rounds = Integer.parseInt(args[2]);
+            }
+            if (args.length > 3) {
+                size = Integer.parseInt(args[3]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid argument, using defaults...");
+        }
+
+        Socket[] sockets = new Socket[count];
+        OutputStream[] outs = new OutputStream[count];
+        BufferedReader[] ins = new BufferedReader[count];
+        boolean[] over = new boolean[count];
+        long start = System.nanoTime();
+        for (int k = 0; k < count; k++) {
+            sockets[k] = new Socket(InetAddress.getLoopbackAddress(), port);
+            sockets[k].setTcpNoDelay(true);
+            outs[k] = sockets[k].getOutputStream();
+            ins[k] = new BufferedReader(new InputStreamReader(sockets[k].getInputStream(), StandardCharsets.US_ASCII), 256);
+            over[k] = true;
+        }
+        System.out.printf("%d sessions opened in %.0f ms%n", count, (System.nanoTime() - start) / 1e6);
+
+        SplittableRandom random = new SplittableRandom(1L);
+        LatencyHistogram latencies = new LatencyHistogram();
+        long commands = 0;
+        long games = 0;
+        long rejected = 0;
+        start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            long sent = System.nanoTime();
+            for (int k = 0; k < count; k++) {
+                String command = over[k]
+                        ? "NEW " + size + " " + random.nextLong()
+                        : "SELECT " + random.nextInt(size) + " " + random.nextInt(size);
+                outs[k].write((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+            for (int k = 0; k < count; k++) {
+                String answer = ins[k].readLine();
+                if (answer != null && answer.startsWith("ERR") && !over[k]) {
+                    // the random dot was already selected, or was the blue dot
+                    rejected++;
+                    continue;
+                }
+                if (answer == null || answer.startsWith("ERR")) {
+                    throw new IOException("Session " + k + " failed: " + answer);
+                }
+                if (answer.startsWith("OK")) {
+                    games++;
+                }
+                over[k] = answer.startsWith("WON") || answer.startsWith("LOST");
+            }
+            latencies.record(System.nanoTime() - sent);
+            commands += count;
+        }
+        long nanos = System.nanoTime() - start;
+        for (int k = 0; k < count; k++) {
+            sockets[k].close();
+        }
+
+        System.out.printf("%d commands, %d games, %d moves rejected in %.0f ms: %.0f commands/sec%n",
+                commands, games, rejected, nanos / 1e6, commands * 1e9 / nanos);
+        System.out.printf("round latency: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                latencies.getPercentile(50) / 1e6, latencies.getPercentile(99) / 1e6, latencies.getMax() / 1e6);
+    }
+}
@@ -0,0 +1,601 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>LookaheadPolicy</b> is the <b>DotPolicy</b> of the expert game. The blue
+ * dot looks a few moves ahead: it tries each of its steps against the blocks the
+ * player is likely to answer with, and takes the step that keeps it closest to the
+ * border whatever the player does.
+ *
+ * The search is an alpha-beta search over rounds of one step of the blue dot and one
+ * block of the player, deepened one round at a time until the time budget is spent.
+ * The player is assumed to block only the dots around the blue dot that lie on its
+ * shortest escape paths, so each round has at most 6 x MAX_BLOCKS positions. The steps
+ * are tried best first: the best step of the previous round or of the cache, then by
+ * increasing distance to the border, and the blocks start with the next step of the
+ * shortest path. The positions are kept in a transposition cache, keyed by a Zobrist
+ * hash of the selected dots and of the location of the blue dot; the keys are derived
+ * from the index of the dots, so that no table of keys has to be built for the board.
+ * The cache is kept from one move to the next.
+ *
+ * The search runs on a copy of the position, so the model of the game, and its dirty
+ * dots, are not touched. The copy is kept from one move to the next and brought up to
+ * date with the few dots that changed, so that on large boards the budget is not spent
+ * copying the whole board; it is only copied again when a new game starts. The budget
+ * counts from the start of the move given by the engine, so the dot selected by the
+ * player and the update of the copy are paid out of it. The clock is read before every
+ * position, and the search stops a tenth of the budget before it is spent, which leaves
+ * the time to unwind it and finish the move, or earlier if the slowest position of the
+ * search so far would not fit in the time left. A round that runs out of time is
+ * thrown away: the step of the last complete round is played, or the first step of the
+ * shortest path if not even one round was complete.
+ */
+
+public class LookaheadPolicy implements DotPolicy {
+
+    /**
+     * largest number of blocks of the player tried in a position
+     */
+    private static final int MAX_BLOCKS = 8;
+
+    /**
+     * largest number of dots that are changed in the copy of the position to
+     * bring it up to date, rather than copying the position again
+     */
+    private static final int MAX_CHANGES = 64;
+
+    /**
+     * the search stops when 1 / MARGIN of the time budget is left
+     */
+    private static final int MARGIN = 10;
+
+    private static final int TABLE_BITS = 16;
+
+    private static final int WIN = 1 << 20;
+    private static final int INFINITY = 1 << 30;
+
+    private static final byte EXACT = 0;
+    private static final byte LOWER = 1;
+    private static final byte UPPER = 2;
+
+    private long budget;
+    private int maxDepth;
+
+    private Topology topology;
+    private GameModel model;
+    private int size;
+    private int[] offsets;
+    private int[] adjacency;
+    private long hash;
+
+    private long[] tableKeys = new long[1 << TABLE_BITS];
+    private int[] tableDepths = new int[1 << TABLE_BITS];
+    private int[] tableValues = new int[1 << TABLE_BITS];
+    private byte[] tableFlags = new byte[1 << TABLE_BITS];
+    private int[] tableMoves = new int[1 << TABLE_BITS];
+
+    private int[][] moves;
+    private long deadline;
+    private long lastCheck;
+    private long slowest;
+    private boolean timedOut;
+    private long nodes;
+    private int lastDepth;
+
+    /**
+     * Constructor used for initializing a policy with a time budget per step.
+     *
+     * @param budget
+     *            the time given to choose a step, in nanoseconds
+     * @param maxDepth
+     *            the largest number of rounds looked ahead
+     */
+    public LookaheadPolicy(long budget, int maxDepth) {
+        this.budget = budget;
+        this.maxDepth = maxDepth;
+        moves = new int[2 * maxDepth + 2][MAX_BLOCKS];
+    }
+
+    /**
+     * Chooses the step of the blue dot that keeps it closest to the border
+     * against the likely blocks of the player, within the time budget.
+     *
+     * @param game
+     *            the model of the current game, which is not modified
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    public int nextStep(GameModel game) {
+        return nextStep(game, System.nanoTime());
+    }
+
+    /**
+     * Chooses the step of the blue dot that keeps it closest to the border
+     * against the likely blocks of the player, within the time budget counted
+     * from the start of the move.
+     *
+     * @param game
+     *            the model of the current game, which is not modified
+     * @param start
+     *            the time the move started, from System.nanoTime()
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    public int nextStep(GameModel game, long start) {
+        deadline = start + budget - budget / MARGIN;
+        lastDepth = 0;
+        int step = game.getEscapeStep();
+        if (step == EscapeSearch.TRAPPED || game.isBorder(step)) {
+            return step;
+        }
+        prepare(game);
+        lastCheck = System.nanoTime();
+        slowest = 0;
+        timedOut = false;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            int value = root(depth, step);
+            if (timedOut) {
+                break;
+            }
+            step = moves[0][0];
+            lastDepth = depth;
+            if (value >= WIN - 2 * maxDepth || value <= -WIN + 2 * maxDepth) {
+                break;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Getter method for the number of rounds of the last complete search.
+     *
+     * @return the depth of the step chosen last, or 0 if it was not searched
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * Getter method for the number of positions examined since the policy was
+     * created.
+     *
+     * @return the number of positions
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Brings the copy of the position up to date, or copies the position again,
+     * and computes its hash. For a new board, the cache is cleared.
+     *
+     * @param game
+     *            the model of the current game
+     */
+    private void prepare(GameModel game) {
+        if (topology != game.getTopology()) {
+            topology = game.getTopology();
+            offsets = topology.getOffsets();
+            adjacency = topology.getAdjacency();
+            size = game.getSize();
+            Arrays.fill(tableKeys, 0L);
+            model = null;
+        }
+        if (model != null && update(game)) {
+            return;
+        }
+        model = new GameModel(game);
+        model.setFieldUpdate(DistanceField.Update.REPAIR);
+        hash = dotKey(model.getDotIndex());
+        long[] selected = model.getSelectedMask();
+        for (int w = 0; w < selected.length; w++) {
+            long bits = selected[w];
+            while (bits != 0L) {
+                hash ^= selectedKey((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Applies to the copy of the position the dots selected or deselected in
+     * the game since the last step, and moves its blue dot, unless there are
+     * more than MAX_CHANGES of them.
+     *
+     * @param game
+     *            the model of the current game
+     * @return true if the copy is up to date, false if it has to be copied again
+     */
+    private boolean update(GameModel game) {
+        long[] target = game.getSelectedMask();
+        long[] selected = model.getSelectedMask();
+        int changes = 0;
+        for (int w = 0; w < target.length; w++) {
+            changes += Long.bitCount(target[w] ^ selected[w]);
+            if (changes > MAX_CHANGES) {
+                return false;
+            }
+        }
+        for (int w = 0; w < target.length; w++) {
+            long bits = target[w] ^ selected[w];
+            while (bits != 0L) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (game.isBlocked(index)) {
+                    model.select(index / size, index % size);
+                } else {
+                    model.deselect(index / size, index % size);
+                }
+                hash ^= selectedKey(index);
+                bits &= bits - 1;
+            }
+        }
+        hash ^= dotKey(model.getDotIndex()) ^ dotKey(game.getDotIndex());
+        model.setCurrentDot(game.getDotIndex());
+        return true;
+    }
+
+    /**
+     * Searches every step of the blue dot for a given number of rounds. The
+     * best step is left first in moves[0].
+     *
+     * @param depth
+     *            the number of rounds
+     * @param previous
+     *            the best step of the previous round, tried first
+     * @return the value of the best step
+     */
+    private int root(int depth, int previous) {
+        int count = steps(0, previous);
+        int[] list = moves[0];
+        int alpha = -INFINITY;
+        for (int k = 0; k < count; k++) {
+            int value = stepValue(list[k], depth, alpha, INFINITY, 0);
+            if (timedOut) {
+                return 0;
+            }
+            if (value > alpha) {
+                alpha = value;
+                int best = list[k];
+                System.arraycopy(list, 0, list, 1, k);
+                list[0] = best;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Computes the value of a position where the blue dot is about to step.
+     *
+     * @param depth
+     *            the number of rounds left, at least 1
+     * @param alpha
+     *            the value the blue dot is already sure to get
+     * @param beta
+     *            the value the player is already sure to hold the blue dot to
+     * @param ply
+     *            the number of moves since the root
+     * @return the value of the position, for the blue dot
+     */
+    private int dotTurn(int depth, int alpha, int beta, int ply) {
+        int slot = (int) (hash >>> (64 - TABLE_BITS));
+        int preferred = EscapeSearch.TRAPPED;
+        if (tableKeys[slot] == hash) {
+            preferred = tableMoves[slot];
+            if (tableDepths[slot] >= depth) {
+                int value = fromTable(tableValues[slot], ply);
+                byte flag = tableFlags[slot];
+                if (flag == EXACT || (flag == LOWER && value >= beta) || (flag == UPPER && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+        int count = steps(ply, preferred);
+        int[] list = moves[ply];
+        int best = -INFINITY;
+        int bestMove = EscapeSearch.TRAPPED;
+        int start = alpha;
+        for (int k = 0; k < count && alpha < beta; k++) {
+            int value = stepValue(list[k], depth, alpha, beta, ply);
+            if (timedOut) {
+                return 0;
+            }
+            if (value > best) {
+                best = value;
+                bestMove = list[k];
+                alpha = Math.max(alpha, value);
+            }
+        }
+        if (count == 0) {
+            return -WIN + ply;
+        }
+        tableKeys[slot] = hash;
+        tableDepths[slot] = depth;
+        tableValues[slot] = toTable(best, ply);
+        tableFlags[slot] = (best <= start) ? UPPER : (best >= beta) ? LOWER : EXACT;
+        tableMoves[slot] = bestMove;
+        return best;
+    }
+
+    /**
+     * Moves the blue dot one step, computes the value of the position for the
+     * answer of the player, and moves the blue dot back.
+     *
+     * @param step
+     *            the next location of the blue dot
+     * @param depth
+     *            the number of rounds left, including this one
+     * @param alpha
+     *            the value the blue dot is already sure to get
+     * @param beta
+     *            the value the player is already sure to hold the blue dot to
+     * @param ply
+     *            the number of moves since the root
+     * @return the value of the step, for the blue dot
+     */
+    private int stepValue(int step, int depth, int alpha, int beta, int ply) {
+        if (model.isBorder(step)) {
+            return WIN - ply;
+        }
+        int dot = model.getDotIndex();
+        model.setCurrentDot(step);
+        hash ^= dotKey(dot) ^ dotKey(step);
+        int value = playerTurn(depth, alpha, beta, ply + 1);
+        model.setCurrentDot(dot);
+        hash ^= dotKey(dot) ^ dotKey(step);
+        return value;
+    }
+
+    /**
+     * Computes the value of a position where the player is about to block a
+     * dot, assuming the player picks the block that is worst for the blue dot.
+     *
+     * @param depth
+     *            the number of rounds left, including this one
+     * @param alpha
+     *            the value the blue dot is already sure to get
+     * @param beta
+     *            the value the player is already sure to hold the blue dot to
+     * @param ply
+     *            the number of moves since the root
+     * @return the value of the position, for the blue dot
+     */
+    private int playerTurn(int depth, int alpha, int beta, int ply) {
+        int count = blocks(ply);
+        int[] list = moves[ply];
+        int best = INFINITY;
+        for (int k = 0; k < count && alpha < beta; k++) {
+            int block = list[k];
+            nodes++;
+            long now = System.nanoTime();
+            slowest = Math.max(slowest, now - lastCheck);
+            lastCheck = now;
+            if (now + slowest > deadline) {
+                timedOut = true;
+                return 0;
+            }
+            model.select(block / size, block % size);
+            hash ^= selectedKey(block);
+            int value;
+            if (model.isDotEnclosed()) {
+                value = -WIN + ply;
+            } else if (depth == 1) {
+                value = evaluate(ply + 1);
+            } else {
+                value = dotTurn(depth - 1, alpha, beta, ply + 1);
+            }
+            model.deselect(block / size, block % size);
+            hash ^= selectedKey(block);
+            if (timedOut) {
+                return 0;
+            }
+            best = Math.min(best, value);
+            beta = Math.min(beta, value);
+        }
+        return (count == 0) ? evaluate(ply) : best;
+    }
+
+    /**
+     * Estimates the value of a position where the blue dot is about to step:
+     * the closer to the border, and the more steps that get there as quickly,
+     * the better.
+     *
+     * @param ply
+     *            the number of moves since the root
+     * @return the value of the position, for the blue dot
+     */
+    private int evaluate(int ply) {
+        int dot = model.getDotIndex();
+        int best = DistanceField.UNREACHABLE;
+        int open = 0;
+        int shortest = 0;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int d = model.getDistanceToBorder(adjacency[k]);
+            if (d == DistanceField.UNREACHABLE) {
+                continue;
+            }
+            open++;
+            if (d < best) {
+                best = d;
+                shortest = 1;
+            } else if (d == best) {
+                shortest++;
+            }
+        }
+        if (best == 0) {
+            return WIN - ply - 1;
+        }
+        return -16 * best + 4 * shortest + open;
+    }
+
+    /**
+     * Lists the steps of the blue dot that can still reach the border, by
+     * increasing distance to the border, in the order of the topology for
+     * equal distances.
+     *
+     * @param ply
+     *            the number of moves since the root, used to pick the list to fill
+     * @param preferred
+     *            a step to try first, or EscapeSearch.TRAPPED
+     * @return the number of steps in moves[ply]
+     */
+    private int steps(int ply, int preferred) {
+        int dot = model.getDotIndex();
+        int[] list = moves[ply];
+        int count = 0;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            int d = model.getDistanceToBorder(n);
+            if (d == DistanceField.UNREACHABLE) {
+                continue;
+            }
+            int i = count++;
+            while (i > 0 && (n == preferred || model.getDistanceToBorder(list[i - 1]) > d)
+                    && list[i - 1] != preferred) {
+                list[i] = list[i - 1];
+                i--;
+            }
+            list[i] = n;
+        }
+        return count;
+    }
+
+    /**
+     * Lists the blocks the player is likely to try: the next step of the blue
+     * dot on its shortest path first, then the other first steps of shortest
+     * paths, the dots one step further on these paths, and the other open
+     * neighbours of the blue dot, up to MAX_BLOCKS.
+     *
+     * @param ply
+     *            the number of moves since the root, used to pick the list to fill
+     * @return the number of blocks in moves[ply]
+     */
+    private int blocks(int ply) {
+        int dot = model.getDotIndex();
+        int[] list = moves[ply];
+        int count = 0;
+        int best = DistanceField.UNREACHABLE;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            best = Math.min(best, model.getDistanceToBorder(adjacency[k]));
+        }
+        if (best == DistanceField.UNREACHABLE) {
+            return 0;
+        }
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (model.getDistanceToBorder(n) == best) {
+                list[count++] = n;
+            }
+        }
+        int first = count;
+        for (int i = 0; i < first && count < MAX_BLOCKS; i++) {
+            int c = list[i];
+            for (int k = offsets[c], end = offsets[c + 1]; k < end && count < MAX_BLOCKS; k++) {
+                int n = adjacency[k];
+                if (model.getDistanceToBorder(n) == best - 1 && !contains(list, count, n)) {
+                    list[count++] = n;
+                }
+            }
+        }
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end && count < MAX_BLOCKS; k++) {
+            int n = adjacency[k];
+            if (!model.isBlocked(n) && !contains(list, count, n)) {
+                list[count++] = n;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if a dot is among the first entries of a list.
+     *
+     * @param list
+     *            the list
+     * @param count
+     *            the number of entries to look at
+     * @param index
+     *            the dot
+     * @return true if the dot is in the list
+     */
+    private static boolean contains(int[] list, int count, int index) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts a value to be stored in the cache, so that the distance of a win
+     * or a loss is counted from the position instead of the root.
+     *
+     * @param value
+     *            the value of the position
+     * @param ply
+     *            the number of moves since the root
+     * @return the value to store
+     */
+    private static int toTable(int value, int ply) {
+        if (value >= WIN - 1024) {
+            return value + ply;
+        }
+        if (value <= -WIN + 1024) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /**
+     * Converts a value read from the cache back to a value counted from the root.
+     *
+     * @param value
+     *            the stored value
+     * @param ply
+     *            the number of moves since the root
+     * @return the value of the position
+     */
+    private static int fromTable(int value, int ply) {
+        if (value >= WIN - 1024) {
+            return value - ply;
+        }
+        if (value <= -WIN + 1024) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /**
+     * Computes the Zobrist key of a selected dot.
+     *
+     * @param index
+     *            the index of the dot
+     * @return the key
+     */
+    private static long selectedKey(int index) {
+        return mix(2L * index);
+    }
+
+    /**
+     * Computes the Zobrist key of the blue dot at a given location.
+     *
+     * @param index
+     *            the index of the location
+     * @return the key
+     */
+    private static long dotKey(int index) {
+        return mix(2L * index + 1);
+    }
+
+    /**
+     * Scrambles a number into a key with the finalizer of SplitMix64.
+     *
+     * @param z
+     *            the number
+     * @return the key
+     */
+    private static long mix(long z) {
+        z = (z + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>MostRoutesPolicy</b> is the <b>DotPolicy</b> of the hard game. Among the
+ * first steps of the shortest paths to the border, the blue dot takes the one from
+ * which the most distinct shortest paths lead to the border, so that the player has
+ * to block as many dots as possible to cut them all.
+ *
+ * The shortest paths are read off the distance field of the model: a step from a dot
+ * at distance d to the border is on a shortest path if it leads to a dot at distance
+ * d - 1. A single breadth first search runs down these steps from the candidate first
+ * steps, layer by layer, and queues every dot below them. The queue is then walked
+ * backwards, and the number of paths from each dot is the sum of the numbers of paths
+ * from the dots one layer closer to the border. The counts saturate at Long.MAX_VALUE.
+ * Ties are broken by the order of the neighbours in the <b>Topology</b>, as in the
+ * normal game.
+ *
+ * The buffers are allocated for the board of the first model, and again only if a
+ * model of another shape is given.
+ */
+
+public class MostRoutesPolicy implements DotPolicy {
+
+    private Topology topology;
+    private int[] offsets;
+    private int[] adjacency;
+    private int[] queue;
+    private long[] routes;
+    private int[] visited;
+    private int stamp;
+
+    /**
+     * Chooses the first step of a shortest path to the border with the most
+     * shortest paths after it.
+     *
+     * @param model
+     *            the model of the current game
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    public int nextStep(GameModel model) {
+        prepare(model.getTopology());
+        int dot = model.getDotIndex();
+        int best = DistanceField.UNREACHABLE;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            best = Math.min(best, model.getDistanceToBorder(adjacency[k]));
+        }
+        if (best == DistanceField.UNREACHABLE) {
+            return EscapeSearch.TRAPPED;
+        }
+
+        nextStamp();
+        int tail = 0;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (model.getDistanceToBorder(n) == best && visited[n] != stamp) {
+                visited[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+        if (tail == 1 || best == 0) {
+            return queue[0];
+        }
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            int down = model.getDistanceToBorder(current) - 1;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (visited[n] != stamp && model.getDistanceToBorder(n) == down) {
+                    visited[n] = stamp;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        for (int i = tail - 1; i >= 0; i--) {
+            int current = queue[i];
+            int down = model.getDistanceToBorder(current) - 1;
+            if (down < 0) {
+                routes[current] = 1L;
+                continue;
+            }
+            long sum = 0L;
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (model.getDistanceToBorder(n) == down) {
+                    sum += routes[n];
+                    if (sum < 0L) {
+                        sum = Long.MAX_VALUE;
+                        break;
+                    }
+                }
+            }
+            routes[current] = sum;
+        }
+
+        int step = EscapeSearch.TRAPPED;
+        long most = -1L;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (model.getDistanceToBorder(n) == best && routes[n] > most) {
+                most = routes[n];
+                step = n;
+            }
+        }
+        return step;
+    }
+
+    /**
+     * Allocates the buffers for a board, unless they already fit it.
+     *
+     * @param topology
+     *            the topology of the board
+     */
+    private void prepare(Topology topology) {
+        if (this.topology == topology) {
+            return;
+        }
+        this.topology = topology;
+        offsets = topology.getOffsets();
+        adjacency = topology.getAdjacency();
+        queue = new int[topology.getCells()];
+        routes = new long[topology.getCells()];
+        visited = new int[topology.getCells()];
+        stamp = 0;
+    }
+
+    /**
+     * Moves to a new visited mark, so that the visited array never needs to be cleared.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+    }
+}
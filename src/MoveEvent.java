@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The class <b>MoveEvent</b> is the Java Flight Recorder event of a move of the player.
+ * It lasts from the click on a dot until the board shows the answer of the blue dot.
+ */
+
+@Name("CircleTheDot.Move")
+@Label("Move")
+@Category("Circle The Dot")
+@Description("A click on a dot, until the move of the blue dot is shown")
+public class MoveEvent extends Event {
+
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int column;
+
+    @Label("Outcome")
+    @Description("MOVED, WON, LOST, or FAILED if the move threw an exception")
+    String outcome;
+
+    @Label("Ignored Clicks")
+    @Description("Clicks ignored while the move was pending")
+    int ignoredClicks;
+}
@@ -0,0 +1,67 @@
+
+/**
+ * The class <b>MoveResult</b> describes the outcome of one move of the player: the
+ * status of the game after the blue dot has answered, and the location of the blue dot.
+ */
+
+public class MoveResult {
+
+    /**
+     * possible outcomes of a move
+     */
+    public enum Status {
+        /** the blue dot moved and the game goes on */
+        MOVED,
+        /** the blue dot cannot reach the border anymore, the player won */
+        WON,
+        /** the blue dot reached the border, the player lost */
+        LOST
+    }
+
+    private Status status;
+    private int row;
+    private int column;
+
+    /**
+     * Constructor
+     *
+     * @param status
+     *            the outcome of the move
+     * @param row
+     *            the row of the blue dot after the move
+     * @param column
+     *            the column of the blue dot after the move
+     */
+    public MoveResult(Status status, int row, int column) {
+        this.status = status;
+        this.row = row;
+        this.column = column;
+    }
+
+    /**
+     * Getter method for the attribute status.
+     *
+     * @return the outcome of the move
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter method for the attribute row.
+     *
+     * @return the row of the blue dot after the move
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Getter method for the attribute column.
+     *
+     * @return the column of the blue dot after the move
+     */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.SplittableRandom;
+
+/**
+ * The interface <b>Player</b> is implemented by the strategies that play the game
+ * automatically, for instance in the <b>BatchSimulator</b>. A player looks at the
+ * model and chooses the next dot to select.
+ */
+
+public interface Player {
+
+    /**
+     * Chooses the next dot to select.
+     *
+     * @param model
+     *            the model of the current game
+     * @param random
+     *            the random generator of the calling worker
+     * @return the index (row * size + column) of the dot to select, or the
+     *            index of the blue dot if no dot it could move to is left
+     */
+    int chooseMove(GameModel model, SplittableRandom random);
+}
@@ -0,0 +1,37 @@
+import java.util.SplittableRandom;
+
+/**
+ * The class <b>RandomPlayer</b> is a <b>Player</b> that selects any available dot,
+ * uniformly at random.
+ */
+
+public class RandomPlayer implements Player {
+
+    /**
+     * Chooses a random dot that is neither selected nor occupied by the blue dot.
+     *
+     * @param model
+     *            the model of the current game
+     * @param random
+     *            the random generator of the calling worker
+     * @return the index of the dot to select
+     */
+    public int chooseMove(GameModel model, SplittableRandom random) {
+        int cells = model.getTopology().getCells();
+        int blueDot = model.getDotIndex();
+        for (int attempt = 0; attempt < 32; attempt++) {
+            int index = random.nextInt(cells);
+            if (index != blueDot && !model.isBlocked(index)) {
+                return index;
+            }
+        }
+        int start = random.nextInt(cells);
+        for (int i = 0; i < cells; i++) {
+            int index = (start + i) % cells;
+            if (index != blueDot && !model.isBlocked(index)) {
+                return index;
+            }
+        }
+        return blueDot;
+    }
+}
@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The class <b>RepaintEvent</b> is the Java Flight Recorder event of an update of the
+ * board view from the model.
+ */
+
+@Name("CircleTheDot.Repaint")
+@Label("Board Update")
+@Category("Circle The Dot")
+@Description("An update of the BoardView or BoardCanvas from the cells that changed")
+public class RepaintEvent extends Event {
+
+    @Label("Board Size")
+    int boardSize;
+
+    @Label("Cells Updated")
+    int cells;
+
+    @Label("Full Refresh")
+    boolean full;
+}
@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The class <b>ResetEvent</b> is the Java Flight Recorder event of the generation of a
+ * new board by GameModel.reset, in the game or in a BoardPool.
+ */
+
+@Name("CircleTheDot.Reset")
+@Label("Board Reset")
+@Category("Circle The Dot")
+@Description("The generation of a new board and of its distance field")
+public class ResetEvent extends Event {
+
+    @Label("Board Size")
+    int boardSize;
+
+    @Label("Density")
+    double density;
+}
@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The class <b>SearchEvent</b> is the Java Flight Recorder event of a search of the
+ * next step of the blue dot, after a dot was selected.
+ */
+
+@Name("CircleTheDot.Search")
+@Label("Escape Search")
+@Category("Circle The Dot")
+@Description("The repair of the distance field and the choice of the next step of the blue dot")
+public class SearchEvent extends Event {
+
+    @Label("Board Size")
+    int boardSize;
+
+    @Label("Nodes Expanded")
+    int nodes;
+
+    @Label("Queue Peak")
+    int queuePeak;
+
+    @Label("Path Length")
+    @Description("Length of the escape path of the blue dot, or -1 if it is trapped")
+    int pathLength;
+}
@@ -0,0 +1,21 @@
+/**
+ * The class <b>ShortestPathPolicy</b> is the <b>DotPolicy</b> of the normal game: the
+ * blue dot takes the first step of a shortest path to the border, read off the
+ * distance field of the model. When several steps are equally short, the first
+ * neighbour in the order of the <b>Topology</b> is taken.
+ */
+
+public class ShortestPathPolicy implements DotPolicy {
+
+    /**
+     * Chooses the first step of a shortest path to the border.
+     *
+     * @param model
+     *            the model of the current game
+     * @return the index of the next location of the blue dot, or
+     *            EscapeSearch.TRAPPED if the blue dot cannot reach the border
+     */
+    public int nextStep(GameModel model) {
+        return model.getEscapeStep();
+    }
+}
@@ -0,0 +1,385 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>Solver</b> looks for the best move of the player in a given position:
+ * the dot to select so that the blue dot is trapped in as few moves as possible,
+ * assuming that the blue dot keeps following its shortest path to the border.
+ *
+ * The search is an iterative deepening depth first search. Since the answer of the
+ * blue dot is forced, each iteration only asks whether the player can trap the blue
+ * dot within a given number of moves, and stops at the first move that does. Only
+ * the dots that the blue dot can still reach are tried, closest first and those on a
+ * shortest escape path before the others. When the blue dot is one step from the
+ * border the only move that does not lose is the one blocking it, and the position is
+ * lost when there are two such dots. Positions already known to be lost within a
+ * depth are kept in a transposition table, keyed by a Zobrist hash of the dots selected
+ * since the start of the search and of the location of the blue dot, that is updated
+ * with every move and undo. The keys are computed from the index of the dots when they
+ * are needed, so a solver does not fill a table of keys nor scan the whole board before
+ * searching.
+ */
+
+public class Solver {
+
+    /**
+     * returned when there is no move to suggest
+     */
+    public static final int NO_MOVE = -1;
+
+    private static final int TABLE_BITS = 18;
+
+    /**
+     * number of dots visited by the search between two readings of the clock
+     */
+    private static final int CHECK_WORK = 1 << 14;
+
+    private GameModel model;
+    private int size;
+    private int[] offsets;
+    private int[] adjacency;
+    private long hash;
+
+    private long[] tableKeys;
+    private int[] tableDepths;
+
+    private int[][] candidates;
+    private int[] order;
+    private int[] hops;
+    private int[] marks;
+    private int stamp;
+
+    private long setup;
+    private long deadline;
+    private volatile boolean cancelled;
+    private boolean timedOut;
+    private long nodes;
+    private long work;
+    private int bestMove = NO_MOVE;
+    private int winningDepth;
+
+    /**
+     * Constructor used for initializing a solver on a copy of a position.
+     *
+     * @param position
+     *            the model of the game, which is not modified
+     */
+    public Solver(GameModel position) {
+        long start = System.nanoTime();
+        model = new GameModel(position);
+        size = model.getSize();
+        offsets = model.getTopology().getOffsets();
+        adjacency = model.getTopology().getAdjacency();
+        int cells = model.getTopology().getCells();
+        hash = dotKey(model.getDotIndex());
+        tableKeys = new long[1 << TABLE_BITS];
+        tableDepths = new int[1 << TABLE_BITS];
+        order = new int[cells];
+        hops = new int[cells];
+        marks = new int[cells];
+        setup = System.nanoTime() - start;
+    }
+
+    /**
+     * Searches for the quickest way to trap the blue dot, deeper and deeper,
+     * until a win is found, the maximum depth is reached, the time budget is
+     * spent or the search is cancelled. The budget of the first search also
+     * pays for the copy of the position made by the constructor, which takes
+     * a while on large boards.
+     *
+     * @param maxDepth
+     *            the largest number of moves of the player to look at
+     * @param budget
+     *            the time budget, in nanoseconds
+     * @return the dot to select: the first move of the quickest win found, or
+     *            else the most promising move, or NO_MOVE if the blue dot is
+     *            already trapped or has escaped
+     */
+    public int solve(int maxDepth, long budget) {
+        if (cancelled) {
+            return NO_MOVE;
+        }
+        deadline = System.nanoTime() + budget - setup;
+        setup = 0;
+        timedOut = false;
+        winningDepth = 0;
+        candidates = new int[maxDepth + 1][];
+        int count = generate(maxDepth);
+        if (count > 0) {
+            bestMove = candidates[maxDepth][0];
+        } else {
+            int step = model.getEscapeStep();
+            bestMove = (step == EscapeSearch.TRAPPED) ? NO_MOVE : step;
+        }
+        for (int depth = 1; depth <= maxDepth && count > 0; depth++) {
+            int move = root(depth, count);
+            if (move != NO_MOVE) {
+                bestMove = move;
+                winningDepth = depth;
+                break;
+            }
+            if (timedOut || cancelled) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Can be called from
+     * another thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Getter method for the number of moves of the win that was found.
+     *
+     * @return the number of moves of the player needed to trap the blue dot,
+     *            or 0 if no win was found
+     */
+    public int getWinningDepth() {
+        return winningDepth;
+    }
+
+    /**
+     * Getter method for the best move found by the last search.
+     *
+     * @return the index of the dot to select, or NO_MOVE
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Getter method for the number of positions examined since the solver was
+     * created.
+     *
+     * @return the number of positions
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Tries every move at the root of an iteration. The moves of the root are
+     * listed once by solve, in the last list of candidates, which the searches
+     * below the root never use.
+     *
+     * @param depth
+     *            the number of moves of the player
+     * @param count
+     *            the number of moves of the root
+     * @return the first move of a win within depth moves, or NO_MOVE
+     */
+    private int root(int depth, int count) {
+        int[] moves = candidates[candidates.length - 1];
+        for (int k = 0; k < count; k++) {
+            if (play(moves[k], depth)) {
+                return moves[k];
+            }
+            if (timedOut) {
+                return NO_MOVE;
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Checks if the player can trap the blue dot within depth moves.
+     *
+     * @param depth
+     *            the number of moves left to the player
+     * @return true if there is a win within depth moves
+     */
+    private boolean search(int depth) {
+        int slot = (int) (hash >>> (64 - TABLE_BITS));
+        if (tableKeys[slot] == hash && tableDepths[slot] >= depth) {
+            return false;
+        }
+        int count = generate(depth);
+        int[] moves = candidates[depth];
+        for (int k = 0; k < count; k++) {
+            if (play(moves[k], depth)) {
+                return true;
+            }
+            if (timedOut) {
+                return false;
+            }
+        }
+        if (!timedOut) {
+            tableKeys[slot] = hash;
+            tableDepths[slot] = depth;
+        }
+        return false;
+    }
+
+    /**
+     * Plays a move of the player and the answer of the blue dot, searches the
+     * resulting position and undoes both moves.
+     *
+     * @param move
+     *            the dot to select
+     * @param depth
+     *            the number of moves left to the player, including this one
+     * @return true if this move leads to a win within depth moves
+     */
+    private boolean play(int move, int depth) {
+        // the clock is read after a given amount of work rather than a given number
+        // of moves, since a move costs more the larger the region of the blue dot
+        nodes++;
+        if (++work >= CHECK_WORK) {
+            work = 0;
+            if (cancelled || System.nanoTime() > deadline) {
+                timedOut = true;
+                return false;
+            }
+        }
+        model.select(move / size, move % size);
+        work += model.getSearchNodes();
+        hash ^= selectedKey(move);
+        boolean win;
+        int step = model.getEscapeStep();
+        if (step == EscapeSearch.TRAPPED) {
+            win = true;
+        } else if (depth == 1 || model.isBorder(step)) {
+            win = false;
+        } else {
+            int dot = model.getDotIndex();
+            model.setCurrentDot(step);
+            hash ^= dotKey(dot) ^ dotKey(step);
+            win = search(depth - 1);
+            model.setCurrentDot(dot);
+            hash ^= dotKey(dot) ^ dotKey(step);
+        }
+        model.deselect(move / size, move % size);
+        hash ^= selectedKey(move);
+        return win;
+    }
+
+    /**
+     * Lists the moves worth trying in the current position, in the order in
+     * which they are tried.
+     *
+     * @param depth
+     *            the number of moves left to the player, used to pick the
+     *            list to fill
+     * @return the number of moves in candidates[depth]
+     */
+    private int generate(int depth) {
+        int dot = model.getDotIndex();
+        int escape = model.getDistanceToBorder(dot);
+        if (candidates[depth] == null) {
+            candidates[depth] = new int[order.length];
+        }
+        int[] moves = candidates[depth];
+
+        // the blue dot is one step from the border: only blocking that step can help
+        int exits = 0;
+        int exit = NO_MOVE;
+        for (int k = offsets[dot], end = offsets[dot + 1]; k < end; k++) {
+            int n = adjacency[k];
+            if (!model.isBlocked(n) && model.isBorder(n)) {
+                exits++;
+                exit = n;
+            }
+        }
+        if (exits > 0) {
+            if (exits > 1) {
+                return 0;
+            }
+            moves[0] = exit;
+            return 1;
+        }
+
+        // the dots reachable by the blue dot, by increasing distance from it
+        nextStamp();
+        int head = 0;
+        int tail = 0;
+        order[tail++] = dot;
+        marks[dot] = stamp;
+        hops[dot] = 0;
+        while (head < tail) {
+            // the region of the blue dot can have millions of dots
+            if ((head & 0xFFFF) == 0 && (cancelled || System.nanoTime() > deadline)) {
+                timedOut = true;
+                return 0;
+            }
+            int current = order[head++];
+            for (int k = offsets[current], end = offsets[current + 1]; k < end; k++) {
+                int n = adjacency[k];
+                if (marks[n] != stamp && !model.isBlocked(n)) {
+                    marks[n] = stamp;
+                    hops[n] = hops[current] + 1;
+                    order[tail++] = n;
+                }
+            }
+        }
+
+        work += tail;
+
+        // the dots on a shortest escape path first, then the others
+        int count = 0;
+        for (int k = 1; k < tail; k++) {
+            int cell = order[k];
+            if (hops[cell] + model.getDistanceToBorder(cell) == escape) {
+                moves[count++] = cell;
+            }
+        }
+        for (int k = 1; k < tail; k++) {
+            int cell = order[k];
+            if (hops[cell] + model.getDistanceToBorder(cell) != escape) {
+                moves[count++] = cell;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes the Zobrist key of a selected dot.
+     *
+     * @param index
+     *            the index of the dot
+     * @return the key
+     */
+    private static long selectedKey(int index) {
+        return mix(2L * index);
+    }
+
+    /**
+     * Computes the Zobrist key of the blue dot at a given location.
+     *
+     * @param index
+     *            the index of the location
+     * @return the key
+     */
+    private static long dotKey(int index) {
+        return mix(2L * index + 1);
+    }
+
+    /**
+     * Turns a number into 64 bits that look random, with the finalizer of
+     * SplittableRandom, so that the keys of different dots are independent.
+     *
+     * @param n
+     *            the number
+     * @return the mixed bits
+     */
+    private static long mix(long n) {
+        long z = (n + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Moves to a new mark, so that the marks never need to be cleared.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+    }
+}
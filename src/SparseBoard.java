@@ -0,0 +1,265 @@
+/**
+ * The class <b>SparseBoard</b> is the board of the large game, on square boards far too
+ * large for a <b>GameModel</b>: a board of 50,000 x 50,000 dots would need 2.5 billion
+ * entries in every array of the model. Nothing here is proportional to the area of the
+ * board.
+ *
+ * Whether a dot is selected when the game starts is not stored but computed when it is
+ * asked, from a hash of the seed of the game and of the position of the dot, which is
+ * below density * 2^53 with the probability given by the density. Only the dots whose
+ * state was changed since, by the player or by a search exploring moves, are stored,
+ * in a <b>TileMap</b> of 64 x 64 tiles, so the memory used grows with the number of
+ * moves instead of the size of the board.
+ *
+ * The dots have the same neighbours, in the same order, as on the square board of a
+ * <b>Topology</b>, and the border is made of the first and last rows and columns. The
+ * blue dot starts in the middle of the board, which is never selected.
+ */
+
+public class SparseBoard {
+
+    /**
+     * largest number of rows and of columns of a board, so that a dot and a
+     * direction fit in a long
+     */
+    public static final int MAX_SIZE = 1 << 28;
+
+    /**
+     * row and column offsets of the six neighbours of a dot, for even and odd
+     * rows, in the order of the topologies
+     */
+    private static final int[] ROW_OFFSETS = {0, 0, -1, -1, 1, 1};
+    private static final int[] EVEN_COLUMN_OFFSETS = {1, -1, 0, -1, 0, -1};
+    private static final int[] ODD_COLUMN_OFFSETS = {1, -1, 0, 1, 0, 1};
+
+    private int size;
+    private long seed;
+    private double density;
+    private long threshold;
+    private TileMap changes = new TileMap();
+    private int dotRow;
+    private int dotColumn;
+    private int steps;
+
+    /**
+     * Constructor used for starting a board of a given size, generated from a
+     * seed, where each dot is initially selected with a given probability.
+     *
+     * @param size
+     *            the number of rows and of columns
+     * @param seed
+     *            the seed of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public SparseBoard(int size, long seed, double density) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Invalid board size: " + size);
+        }
+        this.size = size;
+        this.density = density;
+        threshold = (long) (Math.max(0.0, Math.min(1.0, density)) * (1L << 53));
+        reset(seed);
+    }
+
+    /**
+     * Starts a new game on the board generated from a given seed. The changes
+     * of the previous game are forgotten.
+     *
+     * @param seed
+     *            the seed of the board
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        changes.clear();
+        steps = 0;
+        dotRow = size / 2;
+        dotColumn = size / 2;
+        if (isBlocked(dotRow, dotColumn)) {
+            changes.flip(dotRow, dotColumn);
+        }
+    }
+
+    /**
+     * Checks if the dot at (row, column) was selected when the game started.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return true if the dot was initially selected
+     */
+    public boolean isInitiallySelected(int row, int column) {
+        long z = seed + ((long) row * size + column + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) < threshold;
+    }
+
+    /**
+     * Checks if the dot at (row, column) is selected.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return true if the dot is selected
+     */
+    public boolean isBlocked(int row, int column) {
+        return isInitiallySelected(row, column) ^ changes.get(row, column);
+    }
+
+    /**
+     * Checks if the dot at (row, column) is on the border of the board.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return true if the dot is in the first or last row or column
+     */
+    public boolean isBorder(int row, int column) {
+        return row == 0 || column == 0 || row == size - 1 || column == size - 1;
+    }
+
+    /**
+     * Checks if a position is on the board.
+     *
+     * @param row
+     *            the row of the position
+     * @param column
+     *            the column of the position
+     * @return true if there is a dot at (row, column)
+     */
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < size && column >= 0 && column < size;
+    }
+
+    /**
+     * Computes the row of one of the six neighbours of a dot.
+     *
+     * @param row
+     *            the row of the dot
+     * @param direction
+     *            the neighbour, between 0 and 5
+     * @return the row of the neighbour, which may be outside of the board
+     */
+    public int neighbourRow(int row, int direction) {
+        return row + ROW_OFFSETS[direction];
+    }
+
+    /**
+     * Computes the column of one of the six neighbours of a dot.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @param direction
+     *            the neighbour, between 0 and 5
+     * @return the column of the neighbour, which may be outside of the board
+     */
+    public int neighbourColumn(int row, int column, int direction) {
+        return column + ((row & 1) == 0 ? EVEN_COLUMN_OFFSETS : ODD_COLUMN_OFFSETS)[direction];
+    }
+
+    /**
+     * Selects the dot at (row, column), and increases the number of steps by one.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void select(int row, int column) {
+        if (!isBlocked(row, column)) {
+            changes.flip(row, column);
+        }
+        steps++;
+    }
+
+    /**
+     * Undoes the selection of the dot at (row, column), and decreases the number
+     * of steps by one. This is used to explore moves, not by the game itself.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void deselect(int row, int column) {
+        if (isBlocked(row, column)) {
+            changes.flip(row, column);
+        }
+        steps--;
+    }
+
+    /**
+     * Puts the blue dot at (row, column).
+     *
+     * @param row
+     *            the new row of the blue dot
+     * @param column
+     *            the new column of the blue dot
+     */
+    public void setCurrentDot(int row, int column) {
+        dotRow = row;
+        dotColumn = column;
+    }
+
+    /**
+     * Getter method for the row of the blue dot.
+     *
+     * @return the row
+     */
+    public int getDotRow() {
+        return dotRow;
+    }
+
+    /**
+     * Getter method for the column of the blue dot.
+     *
+     * @return the column
+     */
+    public int getDotColumn() {
+        return dotColumn;
+    }
+
+    /**
+     * Getter method for the number of rows and of columns of the board.
+     *
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter method for the probability that a dot is initially selected.
+     *
+     * @return the density of the board
+     */
+    public double getDensity() {
+        return density;
+    }
+
+    /**
+     * Getter method for the number of steps.
+     *
+     * @return the number of dots selected by the player
+     */
+    public int getNumberOfSteps() {
+        return steps;
+    }
+
+    /**
+     * Getter method for the number of tiles holding the changes of the game,
+     * which is what the board takes in memory.
+     *
+     * @return the number of 64 x 64 tiles
+     */
+    public int getChangedTiles() {
+        return changes.getTileCount();
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>SparseEscapeSearch</b> computes the next step of the blue dot on a
+ * <b>SparseBoard</b>. A breadth first search from the blue dot would visit every dot
+ * closer to it than the border, which on a board of 50,000 x 50,000 dots is most of
+ * the board. This search is an A* search instead, guided by the number of rows or
+ * columns between a dot and the nearest edge: a step never changes the row or the
+ * column by more than one, so this never overestimates the distance to the border,
+ * and the first border dot reached is at the end of a shortest path. On an open board
+ * the search goes almost straight to the border; it only spreads out around the dots
+ * that were selected, and it explores the whole region of the blue dot only to find
+ * that it is trapped.
+ *
+ * Since every step costs one and the estimate changes by at most one per step, the
+ * estimated length of a path through a neighbour is the one of the current dot plus
+ * 0, 1 or 2. The open dots are therefore kept in three stacks, one per estimated
+ * length modulo 3, and the shortest estimated length is always in the current stack.
+ * Each entry packs the row and the column of a dot and the direction of the first step
+ * that led to it, so no parent needs to be stored. The closed dots are marked in a
+ * <b>TileMap</b>, so only the tiles the search goes through are allocated. The stacks
+ * and the tiles are kept from one search to the next.
+ */
+
+public class SparseEscapeSearch {
+
+    /**
+     * returned by the search when the blue dot cannot reach the border
+     */
+    public static final long TRAPPED = -1L;
+
+    private TileMap closed = new TileMap();
+    private long[][] open = new long[3][1024];
+    private int[] openSize = new int[3];
+    private long lastNodes;
+    private int lastTiles;
+
+    /**
+     * Computes the next step of the blue dot on a shortest path to the border.
+     *
+     * @param board
+     *            the board of the current game
+     * @return the index (row * size + column) of the next location of the blue
+     *            dot, or TRAPPED if the blue dot cannot reach the border anymore
+     */
+    public long nextStep(SparseBoard board) {
+        int size = board.getSize();
+        int startRow = board.getDotRow();
+        int startColumn = board.getDotColumn();
+        closed.clear();
+        Arrays.fill(openSize, 0);
+        lastNodes = 0;
+
+        closed.set(startRow, startColumn);
+        int estimate = estimate(size, startRow, startColumn);
+        for (int direction = 0; direction < 6; direction++) {
+            int r = board.neighbourRow(startRow, direction);
+            int c = board.neighbourColumn(startRow, startColumn, direction);
+            if (board.contains(r, c) && !board.isBlocked(r, c)) {
+                push(1 + estimate(size, r, c), r, c, direction);
+            }
+        }
+
+        int length = estimate;
+        int empty = 0;
+        while (empty < 3) {
+            int bucket = length % 3;
+            if (openSize[bucket] == 0) {
+                length++;
+                empty++;
+                continue;
+            }
+            empty = 0;
+            long entry = open[bucket][--openSize[bucket]];
+            int row = (int) (entry >>> 34);
+            int column = (int) (entry >>> 3) & (SparseBoard.MAX_SIZE - 1);
+            int first = (int) entry & 7;
+            if (closed.get(row, column)) {
+                continue;
+            }
+            closed.set(row, column);
+            lastNodes++;
+            if (board.isBorder(row, column)) {
+                lastTiles = closed.getTileCount();
+                int r = board.neighbourRow(startRow, first);
+                return (long) r * size + board.neighbourColumn(startRow, startColumn, first);
+            }
+            // a dot that is not on the border has its six neighbours on the board
+            int steps = length - estimate(size, row, column) + 1;
+            for (int direction = 0; direction < 6; direction++) {
+                int r = board.neighbourRow(row, direction);
+                int c = board.neighbourColumn(row, column, direction);
+                if (!closed.get(r, c) && !board.isBlocked(r, c)) {
+                    push(steps + estimate(size, r, c), r, c, first);
+                }
+            }
+        }
+        lastTiles = closed.getTileCount();
+        return TRAPPED;
+    }
+
+    /**
+     * Getter method for the number of dots expanded by the last search.
+     *
+     * @return the number of dots
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * Getter method for the number of 64 x 64 tiles the last search went through,
+     * which is what its marks take in memory.
+     *
+     * @return the number of tiles
+     */
+    public int getLastTiles() {
+        return lastTiles;
+    }
+
+    /**
+     * Computes the smallest number of steps from a dot to the border.
+     *
+     * @param size
+     *            the size of the board
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return the distance to the nearest edge, in rows or columns
+     */
+    private static int estimate(int size, int row, int column) {
+        return Math.min(Math.min(row, size - 1 - row), Math.min(column, size - 1 - column));
+    }
+
+    /**
+     * Adds an open dot to the stack of its estimated path length.
+     *
+     * @param length
+     *            the estimated length of the shortest path through the dot
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @param first
+     *            the direction of the first step of the path
+     */
+    private void push(int length, int row, int column, int first) {
+        int bucket = length % 3;
+        if (openSize[bucket] == open[bucket].length) {
+            open[bucket] = Arrays.copyOf(open[bucket], 2 * open[bucket].length);
+        }
+        open[bucket][openSize[bucket]++] = ((long) row << 34) | ((long) column << 3) | first;
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.SplittableRandom;
+
+/**
+ * The class <b>SparseGameEngine</b> implements the rules of the game on the gigantic
+ * boards of a <b>SparseBoard</b>, the way <b>GameEngine</b> does on the boards of a
+ * <b>GameModel</b>. The blue dot follows the shortest path found by a
+ * <b>SparseEscapeSearch</b>, so the memory used by a game grows with the number of
+ * moves and with the part of the board the searches go through, not with the area of
+ * the board.
+ *
+ * Its main plays a game in the console, on boards too large for the window of the game.
+ */
+
+public class SparseGameEngine {
+
+    /**
+     * number of rows printed above and below the blue dot
+     */
+    private static final int VIEW_ROWS = 6;
+
+    /**
+     * number of columns printed on each side of the blue dot
+     */
+    private static final int VIEW_COLUMNS = 15;
+
+    private SparseBoard board;
+    private SparseEscapeSearch search = new SparseEscapeSearch();
+    private boolean over;
+
+    /**
+     * Constructor used for starting a game on a board of a given size, generated
+     * from a seed, where each dot is initially selected with a given probability.
+     *
+     * @param size
+     *            the number of rows and of columns of the board
+     * @param seed
+     *            the seed of the board
+     * @param density
+     *            the probability that a dot is initially selected
+     */
+    public SparseGameEngine(int size, long seed, double density) {
+        board = new SparseBoard(size, seed, density);
+    }
+
+    /**
+     * Starts a new game on a board generated from a given seed.
+     *
+     * @param seed
+     *            the seed of the board
+     */
+    public void newGame(long seed) {
+        board.reset(seed);
+        over = false;
+    }
+
+    /**
+     * Selects the dot at (row, column) and moves the blue dot one step closer
+     * to the border.
+     *
+     * @param row
+     *            the row of the selected dot
+     * @param column
+     *            the column of the selected dot
+     * @return the outcome of the move
+     * @throws IllegalArgumentException
+     *            if the dot is outside of the board, already selected, or
+     *            under the blue dot
+     */
+    public MoveResult select(int row, int column) {
+        if (over) {
+            throw new IllegalStateException("The game is over");
+        }
+        if (!board.contains(row, column)) {
+            throw new IllegalArgumentException("Outside of the board: " + row + ", " + column);
+        }
+        if (row == board.getDotRow() && column == board.getDotColumn()) {
+            throw new IllegalArgumentException("The blue dot is on " + row + ", " + column);
+        }
+        if (board.isBlocked(row, column)) {
+            throw new IllegalArgumentException("Already selected: " + row + ", " + column);
+        }
+        long start = GameMetrics.isEnabled() ? System.nanoTime() : 0L;
+        board.select(row, column);
+        long step = search.nextStep(board);
+        if (start != 0L) {
+            GameMetrics.get().recordSearch(System.nanoTime() - start, search.getLastNodes(), 0L);
+        }
+        if (step == SparseEscapeSearch.TRAPPED) {
+            over = true;
+            return new MoveResult(MoveResult.Status.WON, board.getDotRow(), board.getDotColumn());
+        }
+        int size = board.getSize();
+        int r = (int) (step / size);
+        int c = (int) (step % size);
+        board.setCurrentDot(r, c);
+        if (board.isBorder(r, c)) {
+            over = true;
+            return new MoveResult(MoveResult.Status.LOST, r, c);
+        }
+        return new MoveResult(MoveResult.Status.MOVED, r, c);
+    }
+
+    /**
+     * Checks if the current game is over.
+     *
+     * @return true if the player won or lost the current game
+     */
+    public boolean isOver() {
+        return over;
+    }
+
+    /**
+     * Getter method for the board of the game.
+     *
+     * @return the board
+     */
+    public SparseBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Getter method for the search of the blue dot, which tells how much of the
+     * board the last move went through.
+     *
+     * @return the search
+     */
+    public SparseEscapeSearch getSearch() {
+        return search;
+    }
+
+    /**
+     * Prints the dots around the blue dot, odd rows shifted by half a dot: '.'
+     * for an available dot, 'x' for a selected one and 'o' for the blue dot.
+     */
+    private void print() {
+        int size = board.getSize();
+        int dotRow = board.getDotRow();
+        int dotColumn = board.getDotColumn();
+        int first = Math.max(0, dotColumn - VIEW_COLUMNS);
+        int last = Math.min(size - 1, dotColumn + VIEW_COLUMNS);
+        System.out.println("columns " + first + " to " + last);
+        for (int row = Math.max(0, dotRow - VIEW_ROWS); row <= Math.min(size - 1, dotRow + VIEW_ROWS); row++) {
+            StringBuilder line = new StringBuilder(String.format("%10d ", row));
+            if ((row & 1) == 1) {
+                line.append(' ');
+            }
+            for (int column = first; column <= last; column++) {
+                if (column > first) {
+                    line.append(' ');
+                }
+                boolean dot = row == dotRow && column == dotColumn;
+                line.append(dot ? 'o' : board.isBlocked(row, column) ? 'x' : '.');
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Plays a game in the console. The dots around the blue dot are printed
+     * after every move, and the moves are read from the standard input as
+     * "row column" lines, until the game is over, the input ends or a line
+     * says quit. Usage:
+     * java SparseGameEngine [size] [seed] [density]
+     *
+     * @param args
+     *            command line parameters
+     * @throws IOException
+     *             if the standard input cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        int size = 50000;
+        long seed = new SplittableRandom().nextLong();
+        double density = 1.0 / GameModel.INITIAL_PROBA;
+        try {
+            if (args.length > 0) {
+                size = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                seed = Long.parseLong(args[1]);
+            }
+            if (args.length > 2) {
+                density = Double.parseDouble(args[2]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid argument, using defaults...");
+        }
+        if (size < 4 || size > SparseBoard.MAX_SIZE || !(density >= 0 && density < 1)) {
+            System.out.println("The size must be between 4 and " + SparseBoard.MAX_SIZE
+                    + ", and the density at least 0 and less than 1");
+            return;
+        }
+
+        SparseGameEngine engine = new SparseGameEngine(size, seed, density);
+        System.out.println("Board of " + size + " x " + size + " dots, seed " + seed
+                + ". Type the row and the column of a dot to select it, or quit.");
+        engine.print();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while (!engine.isOver() && (line = in.readLine()) != null) {
+            String[] words = line.trim().split("\\s+");
+            if (words[0].equalsIgnoreCase("quit")) {
+                break;
+            }
+            MoveResult result;
+            try {
+                if (words.length < 2) {
+                    throw new NumberFormatException("type a row and a column");
+                }
+                result = engine.select(Integer.parseInt(words[0]), Integer.parseInt(words[1]));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid move: " + e.getMessage());
+                continue;
+            }
+            System.out.println(result.getStatus() + " " + result.getRow() + " " + result.getColumn()
+                    + " (" + engine.getSearch().getLastNodes() + " dots searched)");
+            engine.print();
+        }
+    }
+}
@@ -1,27 +1,27 @@
-/**
- * Contains a method <code>void display()</code> that all the <code>main</code> methods
- * call to display the student information. Fill the box with your personal
- * information.
- *
- */
-
-public class StudentInfo {
-
-    /**
-     * Displays the student information: student name, id, section, etc for each
-     * member of the team.
-     */
-
-    public static void display() {
-
-        System.out.println("************************************************************");
-        System.out.println("*          Student #1: Pasoon Azimi                        *");
-        System.out.println("*          Student Number: 8215497                         *");
-        System.out.println("*          Student #2: Zarif Shahriar                      *");
-        System.out.println("*          Student Number: 8177206                         *");
-        System.out.println("************************************************************");
-        System.out.println();
-
-    }
-
-}
+/**
+ * Contains a method <code>void display()</code> that all the <code>main</code> methods
+ * call to display the student information. Fill the box with your personal
+ * information.
+ *
+ */
+
+public class StudentInfo {
+
+    /**
+     * Displays the student information: student name, id, section, etc for each
+     * member of the team.
+     */
+
+    public static void display() {
+
+        System.out.println("************************************************************");
+        System.out.println("*          Student #1: Pasoon Azimi                        *");
+        System.out.println("*          Student Number: 8215497                         *");
+        System.out.println("*          Student #2: Zarif Shahriar                      *");
+        System.out.println("*          Student Number: 8177206                         *");
+        System.out.println("************************************************************");
+        System.out.println();
+
+    }
+
+}
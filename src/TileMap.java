@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * The class <b>TileMap</b> is a sparse bitset for boards too large to be stored whole.
+ * The board is cut into square tiles of 64 x 64 dots, and a tile is only allocated
+ * when one of its bits is set: bit (column % 64) of word (row % 64) of the tile. The
+ * tiles are found by their key in an open addressing hash table of primitive longs,
+ * so looking up a dot does not allocate anything.
+ *
+ * Cleared tiles are kept and handed out again, zeroed, so a map that is cleared and
+ * filled again, like the visited marks of a search, stops allocating once it has
+ * reached its largest size.
+ */
+
+public class TileMap {
+
+    /**
+     * number of bits of the row and of the column of a dot that give its place
+     * in its tile
+     */
+    public static final int TILE_BITS = 6;
+
+    /**
+     * number of rows and of columns of a tile
+     */
+    public static final int TILE_SIZE = 1 << TILE_BITS;
+
+    private long[] keys = new long[16];
+    private long[][] tiles = new long[16][];
+    private int count;
+    private long[][] spare = new long[16][];
+    private int spareCount;
+
+    /**
+     * Checks if the bit of a dot is set.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return true if the bit is set, false if it is not or if its tile was
+     *            never allocated
+     */
+    public boolean get(int row, int column) {
+        long[] tile = find(key(row, column));
+        return tile != null && (tile[row & (TILE_SIZE - 1)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Sets the bit of a dot, allocating its tile if needed.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void set(int row, int column) {
+        tile(key(row, column))[row & (TILE_SIZE - 1)] |= 1L << column;
+    }
+
+    /**
+     * Flips the bit of a dot, allocating its tile if needed.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     */
+    public void flip(int row, int column) {
+        tile(key(row, column))[row & (TILE_SIZE - 1)] ^= 1L << column;
+    }
+
+    /**
+     * Getter method for the number of allocated tiles.
+     *
+     * @return the number of tiles
+     */
+    public int getTileCount() {
+        return count;
+    }
+
+    /**
+     * Clears every bit. The tiles are kept to be reused.
+     */
+    public void clear() {
+        if (count == 0) {
+            return;
+        }
+        for (int slot = 0; slot < tiles.length; slot++) {
+            if (tiles[slot] != null) {
+                if (spareCount == spare.length) {
+                    spare = Arrays.copyOf(spare, 2 * spare.length);
+                }
+                spare[spareCount++] = tiles[slot];
+                tiles[slot] = null;
+            }
+        }
+        count = 0;
+    }
+
+    /**
+     * Computes the key of the tile of a dot: its row of tiles in the high half
+     * and its column of tiles in the low half.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return the key
+     */
+    private static long key(int row, int column) {
+        return ((long) (row >>> TILE_BITS) << 32) | (column >>> TILE_BITS);
+    }
+
+    /**
+     * Finds the slot of a key in the table: the slot holding it, or the empty
+     * slot where it would be added.
+     *
+     * @param key
+     *            the key of a tile
+     * @return the slot
+     */
+    private int slot(long key) {
+        int mask = tiles.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h >>> 40) & mask;
+        while (tiles[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Looks up a tile.
+     *
+     * @param key
+     *            the key of the tile
+     * @return the tile, or null if it was never allocated
+     */
+    private long[] find(long key) {
+        return tiles[slot(key)];
+    }
+
+    /**
+     * Looks up a tile, allocating it if needed. The table is doubled when it is
+     * half full.
+     *
+     * @param key
+     *            the key of the tile
+     * @return the tile
+     */
+    private long[] tile(long key) {
+        int slot = slot(key);
+        if (tiles[slot] != null) {
+            return tiles[slot];
+        }
+        if (2 * (count + 1) > tiles.length) {
+            grow();
+            slot = slot(key);
+        }
+        long[] tile;
+        if (spareCount > 0) {
+            tile = spare[--spareCount];
+            spare[spareCount] = null;
+            Arrays.fill(tile, 0L);
+        } else {
+            tile = new long[TILE_SIZE];
+        }
+        keys[slot] = key;
+        tiles[slot] = tile;
+        count++;
+        return tile;
+    }
+
+    /**
+     * Doubles the table and adds the tiles back.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[][] oldTiles = tiles;
+        keys = new long[2 * oldKeys.length];
+        tiles = new long[2 * oldTiles.length][];
+        for (int i = 0; i < oldTiles.length; i++) {
+            if (oldTiles[i] != null) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                tiles[slot] = oldTiles[i];
+            }
+        }
+    }
+}
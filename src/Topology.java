@@ -0,0 +1,452 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class <b>Topology</b> describes the shape of a board: which dots exist, which
+ * dots are on the border, and the neighbours of every dot. The board is laid out on an
+ * offset grid of rows and columns, odd rows shifted by half a dot, and the dots are
+ * identified by their packed index (row * columns + column). Three shapes are
+ * supported: the square board of the game, a rectangular board, and a hexagonal board
+ * whose corners of the grid are not part of the board.
+ *
+ * The neighbours are computed once per board, in compressed sparse row form: the
+ * neighbours of a dot are adjacency[offsets[index]] to adjacency[offsets[index + 1] - 1],
+ * always in the same order, which the blue dot uses to break ties between equally
+ * short paths. Searches read these flat arrays instead of computing the neighbours, and
+ * a neighbour outside of the board never appears in them. A dot is on the border when
+ * one of its six neighbours is missing. Topologies are immutable and shared: the
+ * factory methods return the same instance for the same shape while a board of that
+ * shape is in use. The cache only holds soft references, so the tables of the shapes
+ * no board uses any more, tens of megabytes on the largest boards, are given back to
+ * the heap when it runs low.
+ */
+
+public class Topology {
+
+    /**
+     * The shapes of board
+     */
+    public enum Shape {
+        SQUARE, RECTANGLE, HEXAGON
+    }
+
+    /**
+     * row and column offsets of the six neighbours of a dot, for even and odd rows
+     */
+    private static final int[] ROW_OFFSETS = {0, 0, -1, -1, 1, 1};
+    private static final int[] EVEN_COLUMN_OFFSETS = {1, -1, 0, -1, 0, -1};
+    private static final int[] ODD_COLUMN_OFFSETS = {1, -1, 0, 1, 0, 1};
+
+    private static final ConcurrentHashMap<String, Entry> CACHE = new ConcurrentHashMap<String, Entry>();
+    private static final ReferenceQueue<Topology> CLEARED = new ReferenceQueue<Topology>();
+
+    private Shape shape;
+    private int rows;
+    private int columns;
+    private int[] offsets;
+    private int[] adjacency;
+    private long[] border;
+    private long[] holes;
+    private int[] borderCells;
+    private long[] grid;
+    private long[] notFirstColumn;
+    private long[] notLastColumn;
+    private long[] evenNotFirstColumn;
+    private long[] oddNotLastColumn;
+
+    /**
+     * Getter method for the topology of the square board of the game.
+     *
+     * @param size
+     *            the number of rows and columns
+     * @return the shared topology
+     */
+    public static Topology square(int size) {
+        return get(Shape.SQUARE, size, size);
+    }
+
+    /**
+     * Getter method for the topology of a rectangular board.
+     *
+     * @param rows
+     *            the number of rows
+     * @param columns
+     *            the number of columns
+     * @return the shared topology
+     */
+    public static Topology rectangle(int rows, int columns) {
+        return get(Shape.RECTANGLE, rows, columns);
+    }
+
+    /**
+     * Getter method for the topology of a hexagonal board, laid out on a square
+     * grid of 2 * radius + 1 rows and columns.
+     *
+     * @param radius
+     *            the number of steps from the center dot to the border
+     * @return the shared topology
+     */
+    public static Topology hexagon(int radius) {
+        return get(Shape.HEXAGON, 2 * radius + 1, 2 * radius + 1);
+    }
+
+    /**
+     * Looks up a topology in the cache, building it the first time or when the
+     * garbage collector cleared it.
+     *
+     * @param shape
+     *            the shape of the board
+     * @param rows
+     *            the number of rows of the grid
+     * @param columns
+     *            the number of columns of the grid
+     * @return the shared topology
+     */
+    private static Topology get(Shape shape, int rows, int columns) {
+        if (rows < 1 || columns < 1) {
+            throw new IllegalArgumentException("Empty board: " + rows + "x" + columns);
+        }
+        String key = shape + " " + rows + " " + columns;
+        Topology built = null;
+        while (true) {
+            Entry entry = CACHE.get(key);
+            Topology topology = (entry == null) ? null : entry.get();
+            if (topology != null) {
+                return topology;
+            }
+            if (built == null) {
+                built = new Topology(shape, rows, columns);
+            }
+            Entry fresh = new Entry(key, built);
+            if (entry == null ? CACHE.putIfAbsent(key, fresh) == null : CACHE.replace(key, entry, fresh)) {
+                removeCleared();
+                return built;
+            }
+        }
+    }
+
+    /**
+     * Removes from the cache the entries whose topology was cleared.
+     */
+    private static void removeCleared() {
+        Entry entry;
+        while ((entry = (Entry) CLEARED.poll()) != null) {
+            CACHE.remove(entry.key, entry);
+        }
+    }
+
+    /**
+     * The class <b>Entry</b> is a soft reference to a cached topology, which
+     * remembers its key so that it can be removed once it is cleared.
+     */
+    private static class Entry extends SoftReference<Topology> {
+
+        private String key;
+
+        Entry(String key, Topology topology) {
+            super(topology, CLEARED);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Constructor used for building the tables of a board.
+     *
+     * @param shape
+     *            the shape of the board
+     * @param rows
+     *            the number of rows of the grid
+     * @param columns
+     *            the number of columns of the grid
+     */
+    private Topology(Shape shape, int rows, int columns) {
+        this.shape = shape;
+        this.rows = rows;
+        this.columns = columns;
+        int cells = rows * columns;
+        int words = (cells + 63) >>> 6;
+        border = new long[words];
+        holes = new long[words];
+        offsets = new int[cells + 1];
+        grid = new long[words];
+        notFirstColumn = new long[words];
+        notLastColumn = new long[words];
+        evenNotFirstColumn = new long[words];
+        oddNotLastColumn = new long[words];
+
+        int links = 0;
+        int borders = 0;
+        for (int index = 0; index < cells; index++) {
+            setColumnMasks(index);
+            if (!contains(index / columns, index % columns)) {
+                holes[index >>> 6] |= 1L << index;
+                continue;
+            }
+            int count = 0;
+            for (int i = 0; i < 6; i++) {
+                if (neighbour(index, i) >= 0) {
+                    count++;
+                }
+            }
+            links += count;
+            if (count < 6) {
+                border[index >>> 6] |= 1L << index;
+                borders++;
+            }
+        }
+
+        adjacency = new int[links];
+        borderCells = new int[borders];
+        int k = 0;
+        int b = 0;
+        for (int index = 0; index < cells; index++) {
+            offsets[index] = k;
+            if ((holes[index >>> 6] & (1L << index)) != 0) {
+                continue;
+            }
+            for (int i = 0; i < 6; i++) {
+                int n = neighbour(index, i);
+                if (n >= 0) {
+                    adjacency[k++] = n;
+                }
+            }
+            if ((border[index >>> 6] & (1L << index)) != 0) {
+                borderCells[b++] = index;
+            }
+        }
+        offsets[cells] = k;
+    }
+
+    /**
+     * Sets the bit of a dot of the grid in the masks that tell which of its
+     * neighbours are on the grid, for searches that move a whole bitset of dots
+     * by one step at once.
+     *
+     * @param index
+     *            the index of the dot
+     */
+    private void setColumnMasks(int index) {
+        int w = index >>> 6;
+        long bit = 1L << index;
+        int row = index / columns;
+        int column = index % columns;
+        grid[w] |= bit;
+        if (column > 0) {
+            notFirstColumn[w] |= bit;
+            if (row % 2 == 0) {
+                evenNotFirstColumn[w] |= bit;
+            }
+        }
+        if (column < columns - 1) {
+            notLastColumn[w] |= bit;
+            if (row % 2 == 1) {
+                oddNotLastColumn[w] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Computes the index of one of the six neighbours of a dot, in the order
+     * used by the adjacency table.
+     *
+     * @param index
+     *            the index of the dot
+     * @param direction
+     *            the neighbour to compute, between 0 and 5
+     * @return the index of the neighbour, or -1 if it is not on the board
+     */
+    private int neighbour(int index, int direction) {
+        int row = index / columns;
+        int r = row + ROW_OFFSETS[direction];
+        int c = index % columns + ((row % 2 == 0) ? EVEN_COLUMN_OFFSETS : ODD_COLUMN_OFFSETS)[direction];
+        if (r < 0 || r >= rows || c < 0 || c >= columns || !contains(r, c)) {
+            return -1;
+        }
+        return r * columns + c;
+    }
+
+    /**
+     * Checks if a dot of the grid is part of the board.
+     *
+     * @param row
+     *            the row of the dot
+     * @param column
+     *            the column of the dot
+     * @return true if the dot belongs to the shape of the board
+     */
+    private boolean contains(int row, int column) {
+        if (shape != Shape.HEXAGON) {
+            return true;
+        }
+        // cube coordinates of the offset grid, where odd rows are shifted right
+        int radius = rows / 2;
+        int x = column - (row - (row & 1)) / 2 - (radius - (radius - (radius & 1)) / 2);
+        int z = row - radius;
+        return Math.max(Math.abs(x), Math.max(Math.abs(z), Math.abs(x + z))) <= radius;
+    }
+
+    /**
+     * Getter method for the shape of the board.
+     *
+     * @return the shape
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Getter method for the number of rows of the grid.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter method for the number of columns of the grid.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Getter method for the number of dots of the grid, including the ones that
+     * are not part of the board.
+     *
+     * @return rows * columns
+     */
+    public int getCells() {
+        return rows * columns;
+    }
+
+    /**
+     * Getter method for the start of the neighbours of every dot in the adjacency
+     * table. The array is shared and must not be modified.
+     *
+     * @return the offsets, with one more entry than there are dots
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Getter method for the neighbours of all the dots, one dot after the other.
+     * The array is shared and must not be modified.
+     *
+     * @return the adjacency table
+     */
+    public int[] getAdjacency() {
+        return adjacency;
+    }
+
+    /**
+     * Getter method for the bitset of the border dots, one bit per dot. The array
+     * is shared and must not be modified.
+     *
+     * @return the border mask
+     */
+    public long[] getBorderMask() {
+        return border;
+    }
+
+    /**
+     * Getter method for the bitset of the dots of the grid that are not part of
+     * the board. The array is shared and must not be modified.
+     *
+     * @return the mask of the missing dots, all zeros unless the board is a hexagon
+     */
+    public long[] getHoleMask() {
+        return holes;
+    }
+
+    /**
+     * Getter method for the bitset of all the dots of the grid, which clears the
+     * bits past the last dot in the last word. The array is shared and must not
+     * be modified.
+     *
+     * @return the grid mask
+     */
+    public long[] getGridMask() {
+        return grid;
+    }
+
+    /**
+     * Getter method for the bitset of the dots that are not in the first column:
+     * the dots that can be reached from their left neighbour. The array is
+     * shared and must not be modified.
+     *
+     * @return the mask
+     */
+    public long[] getNotFirstColumnMask() {
+        return notFirstColumn;
+    }
+
+    /**
+     * Getter method for the bitset of the dots that are not in the last column:
+     * the dots that can be reached from their right neighbour. The array is
+     * shared and must not be modified.
+     *
+     * @return the mask
+     */
+    public long[] getNotLastColumnMask() {
+        return notLastColumn;
+    }
+
+    /**
+     * Getter method for the bitset of the dots of even rows that are not in the
+     * first column: the dots that can be reached from their diagonal neighbours
+     * on the left. The array is shared and must not be modified.
+     *
+     * @return the mask
+     */
+    public long[] getEvenNotFirstColumnMask() {
+        return evenNotFirstColumn;
+    }
+
+    /**
+     * Getter method for the bitset of the dots of odd rows that are not in the
+     * last column: the dots that can be reached from their diagonal neighbours
+     * on the right. The array is shared and must not be modified.
+     *
+     * @return the mask
+     */
+    public long[] getOddNotLastColumnMask() {
+        return oddNotLastColumn;
+    }
+
+    /**
+     * Getter method for the indexes of all the border dots, in increasing order.
+     * The array is shared and must not be modified.
+     *
+     * @return the border dots
+     */
+    public int[] getBorderCells() {
+        return borderCells;
+    }
+
+    /**
+     * Checks if a dot is part of the board.
+     *
+     * @param index
+     *            the index of the dot
+     * @return false if the dot is outside of the shape of the board
+     */
+    public boolean isCell(int index) {
+        return (holes[index >>> 6] & (1L << index)) == 0;
+    }
+
+    /**
+     * Checks if a dot is on the border of the board.
+     *
+     * @param index
+     *            the index of the dot
+     * @return true if the dot has fewer than six neighbours
+     */
+    public boolean isBorder(int index) {
+        return (border[index >>> 6] & (1L << index)) != 0;
+    }
+}